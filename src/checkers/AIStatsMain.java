@@ -5,12 +5,16 @@ import java.util.Collections;
 import java.util.List;
 
 import checkers.ai.AIPlayer;
+import checkers.ai.LazySmpPlayer;
+import checkers.ai.MoveHistory;
 import checkers.ai.NegamaxExtensionPlayer;
 import checkers.ai.NegamaxOrderingPlayer;
 import checkers.ai.NegamaxPlayer;
 import checkers.ai.NegascoutOrderingPlayer;
 import checkers.ai.RandomPlayer;
+import checkers.ai.YoungBrothersWaitPlayer;
 import checkers.ascii.AsciiPlayer;
+import checkers.io.FenIO;
 import checkers.model.GameState;
 import checkers.model.Move;
 
@@ -27,13 +31,170 @@ public class AIStatsMain {
 	 * They are set up against a RandomPlayer, and the number of searches and
 	 * node evaluations they do is printed.
 	 *
-	 * @param args Command line args. Currently none supported.
+	 * @param args Command line args: "smp [DEPTH [THREADS]]" compares the
+	 *             lazy SMP player against the single-threaded negascout
+	 *             player instead, and "ybw [DEPTH [THREADS]]" compares the
+	 *             Young Brothers Wait player against the serial negamax
+	 *             player, and "ordering [DEPTH]" compares ordering the
+	 *             moves by shallower searches against ordering them by
+	 *             history.
 	 */
 	public static void main(String[] args) {
+		if (args.length > 0 && args[0].equals("smp")) {
+			int depth = (args.length > 1) ? Integer.parseInt(args[1]) : 9;
+			int threads = (args.length > 2) ? Integer.parseInt(args[2])
+					: Runtime.getRuntime().availableProcessors();
+			smpSpeedup(depth, threads);
+			return;
+		}
+		if (args.length > 0 && args[0].equals("ybw")) {
+			int depth = (args.length > 1) ? Integer.parseInt(args[1]) : 12;
+			int threads = (args.length > 2) ? Integer.parseInt(args[2])
+					: Runtime.getRuntime().availableProcessors();
+			ybwEfficiency(depth, threads);
+			return;
+		}
+		if (args.length > 0 && args[0].equals("ordering")) {
+			int depth = (args.length > 1) ? Integer.parseInt(args[1]) : 9;
+			orderingNodes(depth);
+			return;
+		}
 		aiOpeningMoves();
 //		aiVsAI();
 	}
 
+	/**
+	 * Times a LazySmpPlayer against a NegascoutOrderingPlayer of the same
+	 * depth on a few positions, printing the nodes each of the SMP player's
+	 * threads searched, and its speedup.
+	 */
+	private static void smpSpeedup(int depth, int threads) {
+		String[] fens = {
+			"B:W21,22,23,24,25,26,27,28,29,30,31,32:B1,2,3,4,5,6,7,8,9,10,11,12.",
+			"B:W20,26,28,29,31,32:B4,8,10,11,12,15,22.",
+			"W:W17,21,22,25,26,27,29,30,31:B1,2,3,5,6,8,10,11,14.",
+			"W:WK5,K10,K26,K28:BK18,K19,K23,K24,K30.",
+		};
+		NegascoutOrderingPlayer single = new NegascoutOrderingPlayer(depth, 4);
+		LazySmpPlayer smp = new LazySmpPlayer(depth, threads);
+		System.out.println(single + " vs. " + smp);
+
+		long singleTotal = 0;
+		long smpTotal = 0;
+		for (String fen : fens) {
+			GameState state = FenIO.parseFen(fen);
+
+			long start = System.nanoTime();
+			Move singleMove = single.chooseMove(new GameState(state));
+			long singleNanos = System.nanoTime() - start;
+
+			start = System.nanoTime();
+			Move smpMove = smp.chooseMove(new GameState(state));
+			long smpNanos = System.nanoTime() - start;
+
+			singleTotal += singleNanos;
+			smpTotal += smpNanos;
+
+			System.out.println(fen);
+			System.out.println(String.format("  negascout %-8s %10d nodes %8.3f s",
+					singleMove, single.getSearches(), singleNanos / 1e9));
+			System.out.println(String.format("  smp       %-8s %10d nodes %8.3f s   speedup %.2f",
+					smpMove, smp.getSearches(), smpNanos / 1e9, (double) singleNanos / smpNanos));
+			int[] threadSearches = smp.getThreadSearches();
+			for (int i = 0; i < threadSearches.length; ++i)
+				System.out.println(String.format("    thread %2d %10d nodes", i, threadSearches[i]));
+		}
+		System.out.println(String.format("Overall speedup: %.2f", (double) singleTotal / smpTotal));
+		smp.shutdown();
+	}
+
+	/**
+	 * Times a YoungBrothersWaitPlayer against a NegamaxPlayer of the same
+	 * depth on a few positions, printing how well the threads are used:
+	 * the nodes searched per second per thread, the search overhead (the
+	 * extra nodes searched, compared to the serial search), the speedup,
+	 * and the efficiency (the speedup per thread).
+	 */
+	private static void ybwEfficiency(int depth, int threads) {
+		String[] fens = {
+			"B:W21,22,23,24,25,26,27,28,29,30,31,32:B1,2,3,4,5,6,7,8,9,10,11,12.",
+			"B:W20,26,28,29,31,32:B4,8,10,11,12,15,22.",
+			"W:W17,21,22,25,26,27,29,30,31:B1,2,3,5,6,8,10,11,14.",
+			"W:WK5,K10,K26,K28:BK18,K19,K23,K24,K30.",
+		};
+		NegamaxPlayer serial = new NegamaxPlayer(depth);
+		YoungBrothersWaitPlayer ybw = new YoungBrothersWaitPlayer(depth, threads);
+		System.out.println(serial + " vs. " + ybw);
+
+		long serialTotal = 0;
+		long serialSearches = 0;
+		long ybwTotal = 0;
+		long ybwSearches = 0;
+		for (String fen : fens) {
+			GameState state = FenIO.parseFen(fen);
+
+			long start = System.nanoTime();
+			Move serialMove = serial.chooseMove(new GameState(state));
+			long serialNanos = System.nanoTime() - start;
+
+			Move ybwMove = ybw.chooseMove(new GameState(state));
+			long ybwNanos = ybw.getElapsedNanos();
+
+			serialTotal += serialNanos;
+			serialSearches += serial.getSearches();
+			ybwTotal += ybwNanos;
+			ybwSearches += ybw.getSearches();
+
+			double speedup = (double) serialNanos / ybwNanos;
+			System.out.println(fen);
+			System.out.println(String.format("  negamax %-8s %10d nodes %8.3f s %10.0f nodes/s",
+					serialMove, serial.getSearches(), serialNanos / 1e9,
+					serial.getSearches() * 1e9 / serialNanos));
+			System.out.println(String.format("  ybw     %-8s %10d nodes %8.3f s %10.0f nodes/s per thread",
+					ybwMove, ybw.getSearches(), ybwNanos / 1e9, ybw.getNodesPerSecondPerThread()));
+			System.out.println(String.format("  overhead %.1f%%, speedup %.2f, efficiency %.2f",
+					ybw.getSearchOverhead(serial.getSearches()) * 100, speedup, speedup / threads));
+		}
+		double speedup = (double) serialTotal / ybwTotal;
+		System.out.println(String.format("Overall: overhead %.1f%%, speedup %.2f, efficiency %.2f",
+				((double) ybwSearches / serialSearches - 1) * 100, speedup, speedup / threads));
+		ybw.shutdown();
+	}
+
+	/**
+	 * Prints the nodes the ordering players search (in all, and not
+	 * counting evaluations) at the given depth on a few positions, with
+	 * moves ordered by shallower searches and by history.
+	 */
+	private static void orderingNodes(int depth) {
+		String[] fens = {
+			"B:W21,22,23,24,25,26,27,28,29,30,31,32:B1,2,3,4,5,6,7,8,9,10,11,12.",
+			"B:W20,26,28,29,31,32:B4,8,10,11,12,15,22.",
+			"W:W17,21,22,25,26,27,29,30,31:B1,2,3,5,6,8,10,11,14.",
+			"W:WK5,K10,K26,K28:BK18,K19,K23,K24,K30.",
+		};
+		List<AIPlayer> aiPlayers = new ArrayList<AIPlayer>();
+		aiPlayers.add(new NegamaxOrderingPlayer(depth, 4));
+		aiPlayers.add(new NegamaxOrderingPlayer(depth, new MoveHistory(), null));
+		aiPlayers.add(new NegascoutOrderingPlayer(depth, 4));
+		aiPlayers.add(new NegascoutOrderingPlayer(depth, new MoveHistory(), null));
+
+		for (AIPlayer aip : aiPlayers) {
+			System.out.println(aip);
+			long searches = 0;
+			long evals = 0;
+			for (String fen : fens) {
+				Move move = aip.chooseMove(FenIO.parseFen(fen));
+				System.out.println(String.format("  %-8s %10d nodes %10d interior",
+						move, aip.getSearches(), aip.getSearches() - aip.getEvals()));
+				searches += aip.getSearches();
+				evals += aip.getEvals();
+			}
+			System.out.println(String.format("  total    %10d nodes %10d interior",
+					searches, searches - evals));
+		}
+	}
+
 	private static void aiOpeningMoves() {
 		List<AIPlayer> aiPlayers = new ArrayList<AIPlayer>();
 		for (int i = 9; i <= 10; i++) {
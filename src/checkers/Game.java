@@ -45,6 +45,11 @@ public class Game {
 	 */
 	private Stack<GameState> stateHistory;
 
+	/**
+	 * Keeps the time each player has used, or null if the game is untimed.
+	 */
+	private GameClock clock;
+
 	/**
 	 * Constructor initializes to a specified game state, and remembers who the
 	 * players are.
@@ -127,6 +132,9 @@ public class Game {
 	 * registered displays of the update.
 	 */
 	public void makeMove(Move move) {
+		if (clock != null)
+			clock.endTurn(state.playerToMove());
+
 		state.makeMove(move);
 
 		stateHistory.add((GameState) state.clone());
@@ -164,11 +172,36 @@ public class Game {
 	public static void newGame() throws CloneNotSupportedException {
 		Game oldGame = currentGame();
 		Game newGame = new Game(oldGame.players, oldGame.displays);
+		if (oldGame.clock != null)
+			newGame.setClock(oldGame.clock);
 		CURRENT_GAME = newGame;
 	}
 
+	/**
+	 * Times this game with the given clock (or stops timing it, if null),
+	 * which is reset, so the current player's turn starts now.  AI players
+	 * are given the clock too, so they can budget their time by it.
+	 */
+	public void setClock(GameClock clock) {
+		this.clock = clock;
+		if (clock != null)
+			clock.reset();
+		for (Player player : players.values())
+			if (player instanceof AIPlayer)
+				((AIPlayer) player).setClock(clock);
+	}
+
+	/**
+	 * Returns this game's clock, or null if it is untimed.
+	 */
+	public GameClock getClock() {
+		return clock;
+	}
+
 	public void setPlayer(PlayerId playerId, Player player) {
 		players.put(playerId, player);
+		if (player instanceof AIPlayer)
+			((AIPlayer) player).setClock(clock);
 	}
 
 	public void setBlackPlayer(Player blackPlayer) {
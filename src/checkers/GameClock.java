@@ -0,0 +1,122 @@
+package checkers;
+
+import java.util.EnumMap;
+
+import checkers.model.PlayerId;
+
+/**
+ * Chess-style game clock: each player starts with the same amount of time,
+ * which runs down while it is their turn, and gets a fixed increment added
+ * after each of their moves.
+ * <p>
+ * A {@link Game} with a clock (see {@link Game#setClock(GameClock)})
+ * charges each move to the player who made it.  The clock only keeps
+ * time; running out of it doesn't end the game, but timed AI players
+ * budget their searches by it.
+ */
+public class GameClock {
+	private final long baseMillis;
+	private final long incrementMillis;
+
+	private final EnumMap<PlayerId, Long> remainingMillis =
+			new EnumMap<PlayerId, Long>(PlayerId.class);
+
+	/**
+	 * When the current turn started, from System.nanoTime().
+	 */
+	private long turnStart;
+
+	/**
+	 * Constructs a clock giving each player baseMillis milliseconds, plus
+	 * incrementMillis more after each move, and starts the first turn.
+	 */
+	public GameClock(long baseMillis, long incrementMillis) {
+		if (baseMillis <= 0 || incrementMillis < 0)
+			throw new IllegalArgumentException("bad time control "
+					+ baseMillis + "+" + incrementMillis + " ms");
+
+		this.baseMillis = baseMillis;
+		this.incrementMillis = incrementMillis;
+		reset();
+	}
+
+	/**
+	 * Parses a time control of the form BASE[+INCREMENT], in (possibly
+	 * fractional) seconds, e.g. "300+5" or "60".
+	 */
+	public static GameClock parse(String timeControl) {
+		String[] parts = timeControl.split("\\+");
+		if (parts.length > 2)
+			throw new IllegalArgumentException(
+					"could not parse time control `" + timeControl + "'");
+
+		long base = Math.round(Double.parseDouble(parts[0]) * 1000);
+		long increment = (parts.length == 2)
+				? Math.round(Double.parseDouble(parts[1]) * 1000) : 0;
+		return new GameClock(base, increment);
+	}
+
+	/**
+	 * Gives both players their base time again, and starts a new turn.
+	 */
+	public synchronized void reset() {
+		for (PlayerId p : PlayerId.values())
+			remainingMillis.put(p, baseMillis);
+		turnStart = System.nanoTime();
+	}
+
+	public long getBaseMillis() {
+		return baseMillis;
+	}
+
+	public long getIncrementMillis() {
+		return incrementMillis;
+	}
+
+	/**
+	 * Returns the time the given player had left at the start of the
+	 * current turn (not counting the time used in it so far).
+	 */
+	public synchronized long getRemainingMillis(PlayerId p) {
+		return remainingMillis.get(p);
+	}
+
+	/**
+	 * Returns the time used so far in the current turn.
+	 */
+	public synchronized long getTurnMillis() {
+		return (System.nanoTime() - turnStart) / 1000000;
+	}
+
+	/**
+	 * Returns true if the given player has used up all their time.
+	 */
+	public synchronized boolean isOutOfTime(PlayerId p) {
+		return remainingMillis.get(p) < 0;
+	}
+
+	/**
+	 * Ends the given player's turn: charges them for the time they used,
+	 * adds their increment, and starts the next turn.
+	 */
+	public synchronized void endTurn(PlayerId p) {
+		long now = System.nanoTime();
+		long used = (now - turnStart) / 1000000;
+		remainingMillis.put(p, remainingMillis.get(p) - used + incrementMillis);
+		turnStart = now;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("black %s, white %s",
+				format(remainingMillis.get(PlayerId.BLACK)),
+				format(remainingMillis.get(PlayerId.WHITE)));
+	}
+
+	private static String format(long millis) {
+		String sign = (millis < 0) ? "-" : "";
+		millis = Math.abs(millis);
+		return String.format("%s%d:%02d.%d", sign, millis / 60000,
+				(millis / 1000) % 60, (millis / 100) % 10);
+	}
+}
@@ -3,16 +3,22 @@ package checkers;
 import static checkers.Constants.DEFAULT_NEGAMAX_SEARCH_DEPTH;
 import static checkers.Constants.DEFAULT_NEGAMAX_EXTENSION_SEARCH_DEPTH;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 
 import checkers.ai.AIPlayer;
 import checkers.ai.AIStatsDisplay;
+import checkers.ai.IterativeDeepeningPlayer;
+import checkers.ai.LazySmpPlayer;
+import checkers.ai.MoveHistory;
 import checkers.ai.NegamaxExtensionPlayer;
 import checkers.ai.NegamaxOrderingPlayer;
 import checkers.ai.NegamaxPlayer;
 import checkers.ai.NegascoutOrderingPlayer;
 import checkers.ai.RandomPlayer;
+import checkers.ai.TranspositionTable;
+import checkers.ai.YoungBrothersWaitPlayer;
 import checkers.ascii.AsciiDisplay;
 import checkers.ascii.AsciiPlayer;
 import checkers.gui.Frame;
@@ -33,6 +39,9 @@ import checkers.print.PrettyBoardPrinter;
  * @author Scott Bressler
  */
 class NewMain {
+	private static final int DEFAULT_TABLE_MEGABYTES = 64;
+	private static final int DEFAULT_MOVE_MILLIS = 1000;
+
 	private static Frame gui = null;
 	private static Display asciiDisplay = null;
 	private static Display guiDisplay = null;
@@ -41,6 +50,8 @@ class NewMain {
 	private static Display aiStatsDisplayWhite = null;
 	private static Player playerForBlack = null;
 	private static Player playerForWhite = null;
+	private static TranspositionTable table = null;
+	private static GameClock clock = null;
 
 	public static void main(String args[]) throws IOException {
 		// default options:
@@ -49,6 +60,8 @@ class NewMain {
 		String playerForWhiteString = "NEGAMAX";
 
 		ArrayList<String> displayStrings = new ArrayList<String>();
+		int tableMegabytes = 0;
+		String tableFile = null;
 
 		for (int i = 0; i < args.length; ++i) {
 			if (args[i].equals("-h") || args[i].equals("-help")
@@ -64,13 +77,28 @@ class NewMain {
 				playerForWhiteString = args[++i];
 			else if (args[i].equals("-d"))
 				displayStrings.add(args[++i]);
+			else if (args[i].equals("-t"))
+				tableMegabytes = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-T"))
+				tableFile = args[++i];
+			else if (args[i].equals("-c"))
+				clock = GameClock.parse(args[++i]);
 		}
 
+		if (tableFile != null && new File(tableFile).exists())
+			table = TranspositionTable.load(tableFile);
+		else if (tableFile != null && tableMegabytes == 0)
+			table = new TranspositionTable(DEFAULT_TABLE_MEGABYTES);
+		else if (tableMegabytes > 0)
+			table = new TranspositionTable(tableMegabytes);
+
 		playerForBlack = parsePlayerString(playerForBlackString);
 		playerForWhite = parsePlayerString(playerForWhiteString);
 		parseDisplayStrings(displayStrings);
 
 		Game game = new Game(playerForBlack, playerForWhite, startingState);
+		if (clock != null)
+			game.setClock(clock);
 
 		// if the GUI was created by parsePlayerString or parseDisplayStrings,
 		// then we need to initialize it.  (Note: must do this after creation
@@ -88,12 +116,17 @@ class NewMain {
 
 		// Print end-game messages
 		printEndGameMessages(game);
+
+		if (tableFile != null)
+			table.save(tableFile);
 	}
 
 	private static void printEndGameMessages(Game game) {
 		System.out.println("\n");
 		new PrettyBoardPrinter().print(game.getState().getBoard());
 		System.out.println("\n" + game.getState().playerToMove().opponent() + " wins!!!\n");
+		if (game.getClock() != null)
+			System.out.println(" Time left: " + game.getClock() + "\n");
 		System.out.println(" Game Over.");
 	}
 
@@ -116,9 +149,9 @@ class NewMain {
 		if (playerString.toUpperCase().matches("^NEGAMAX(:\\d+)?")) {
 			String[] parts = playerString.split(":");
 			if (parts.length == 2)
-				return new NegamaxPlayer(Integer.parseInt(parts[1]));
+				return new NegamaxPlayer(Integer.parseInt(parts[1]), table);
 			else
-				return new NegamaxPlayer(DEFAULT_NEGAMAX_SEARCH_DEPTH);
+				return new NegamaxPlayer(DEFAULT_NEGAMAX_SEARCH_DEPTH, table);
 		}
 		if (playerString.toUpperCase().matches("^NEGAMAXEXTENSION(:\\d+)?")) {
 			String[] parts = playerString.split(":");
@@ -127,27 +160,64 @@ class NewMain {
 			else
 				return new NegamaxExtensionPlayer(DEFAULT_NEGAMAX_EXTENSION_SEARCH_DEPTH);
 		}
-		if (playerString.toUpperCase().matches("^NEGAMAXORDERING(:\\d+,\\d+)?")) {
+		if (playerString.toUpperCase().matches("^ITERATIVE(:\\d+)?")) {
+			String[] parts = playerString.split(":");
+			if (parts.length == 2)
+				return new IterativeDeepeningPlayer(Long.parseLong(parts[1]), table);
+			else
+				return new IterativeDeepeningPlayer((clock != null) ? 0 : DEFAULT_MOVE_MILLIS, table);
+		}
+		if (playerString.toUpperCase().matches("^SMP(:\\d+,\\d+)?")) {
+			String[] parts = playerString.split(":");
+			if (parts.length == 2) {
+				String[] numbers = parts[1].split(",");
+				return new LazySmpPlayer(
+						Integer.parseInt(numbers[0]),
+						Integer.parseInt(numbers[1]), table);
+			}
+			else
+				return new LazySmpPlayer(DEFAULT_NEGAMAX_SEARCH_DEPTH,
+						Runtime.getRuntime().availableProcessors(), table);
+		}
+		if (playerString.toUpperCase().matches("^YBW(:\\d+,\\d+)?")) {
+			String[] parts = playerString.split(":");
+			if (parts.length == 2) {
+				String[] numbers = parts[1].split(",");
+				return new YoungBrothersWaitPlayer(
+						Integer.parseInt(numbers[0]),
+						Integer.parseInt(numbers[1]));
+			}
+			else
+				return new YoungBrothersWaitPlayer(DEFAULT_NEGAMAX_SEARCH_DEPTH,
+						Runtime.getRuntime().availableProcessors());
+		}
+		if (playerString.toUpperCase().matches("^NEGAMAXORDERING(:\\d+,(\\d+|H))?")) {
 			String[] parts = playerString.split(":");
 			if (parts.length == 2) {
 				String[] depths = parts[1].split(",");
+				if (depths[1].equalsIgnoreCase("h"))
+					return new NegamaxOrderingPlayer(
+							Integer.parseInt(depths[0]), new MoveHistory(), table);
 				return new NegamaxOrderingPlayer(
 						Integer.parseInt(depths[0]),
-						Integer.parseInt(depths[1]));
+						Integer.parseInt(depths[1]), table);
 			}
 			else
-				return new NegamaxOrderingPlayer(5, 4); // default
+				return new NegamaxOrderingPlayer(5, 4, table); // default
 		}
-		if (playerString.toUpperCase().matches("^NEGASCOUT(:\\d+,\\d+)?")) {
+		if (playerString.toUpperCase().matches("^NEGASCOUT(:\\d+,(\\d+|H))?")) {
 			String[] parts = playerString.split(":");
 			if (parts.length == 2) {
 				String[] depths = parts[1].split(",");
+				if (depths[1].equalsIgnoreCase("h"))
+					return new NegascoutOrderingPlayer(
+							Integer.parseInt(depths[0]), new MoveHistory(), table);
 				return new NegascoutOrderingPlayer(
 						Integer.parseInt(depths[0]),
-						Integer.parseInt(depths[1]));
+						Integer.parseInt(depths[1]), table);
 			}
 			else
-				return new NegascoutOrderingPlayer(5, 4); // default
+				return new NegascoutOrderingPlayer(5, 4, table); // default
 		}
 
 		throw new IllegalArgumentException(
@@ -228,6 +298,16 @@ class NewMain {
 			+ "  -d DISPLAY  Specifies (additional) display type (repeat for more)\n"
 			+ "  -f FEN      Specifies initial game state in a FEN notation string\n"
 			+ "  -F FILE     Same as above, but reads FEN notation from FILE instead\n"
+			+ "  -c BASE[+INC]\n"
+			+ "              Times the game with a clock giving each player BASE seconds, plus\n"
+			+ "                INC more after each move; the iterative player budgets by it\n"
+			+ "  -t MB       Gives the negamax and negascout players a transposition table\n"
+			+ "                of MB megabytes (shared by both players, and kept outside of\n"
+			+ "                the Java heap; for tables over about 1/4 of physical memory,\n"
+			+ "                also pass java -XX:MaxDirectMemorySize=SIZE)\n"
+			+ "  -T FILE     Loads the transposition table from FILE, if it exists (else\n"
+			+ "                makes one of -t MB, default " + DEFAULT_TABLE_MEGABYTES + "), and saves it back to FILE\n"
+			+ "                at the end of the game\n"
 			+ "  -h, --help  Output this incredibly helpful message\n"
 			+ "\n"
 			+ "PLAYER may be one of:\n"
@@ -242,6 +322,18 @@ class NewMain {
 			+ "  negamaxextension[:N]\n"
 			+ "          AI player, similar to Negamax above, but with extended searching\n"
 			+ "          through jump sequences\n"
+			+ "  iterative[:MS]\n"
+			+ "          AI player, similar to Negamax above, but searching deeper and deeper\n"
+			+ "          until MS milliseconds are up (default: " + DEFAULT_MOVE_MILLIS + ", or with -c, a share\n"
+			+ "          of the time left on the clock, capped by MS if given)\n"
+			+ "  smp[:N,T]\n"
+			+ "          AI player, similar to Negamax above, but searching with T threads\n"
+			+ "          (default: one per processor) that share a transposition table;\n"
+			+ "          has search depth N\n"
+			+ "  ybw[:N,T]\n"
+			+ "          AI player, similar to Negamax above, but searching the moves after\n"
+			+ "          the first at each node in parallel, with T threads (default: one per\n"
+			+ "          processor); has search depth N\n"
 			+ "  negamaxordering[:N,M]\n"
 			+ "          AI player, similar to Negamax above, but with a move-ordering stage\n"
 			+ "          that can make alpha-beta pruning more efficient; has search depth N,\n"
@@ -250,6 +342,8 @@ class NewMain {
 			+ "          AI player that uses move ordering similar to the above, but uses a\n"
 			+ "          null window search as opposed to a normal Negamax; has search depth\n"
 			+ "          N, and move-ordering search differential M\n"
+			+ "          (for either ordering player, an M of `h' orders the moves by killer\n"
+			+ "          moves, counter-moves and history instead of by shallower searches)\n"
 			+ "\n"
 			+ "DISPLAY(s) may be any of:  gui  ascii  fen  aistats-b  aistats-w  all\n"
 			+ "\n"
@@ -0,0 +1,201 @@
+package checkers;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import checkers.io.FenIO;
+import checkers.model.GameState;
+import checkers.model.MoveBuffer;
+import checkers.model.PackedMove;
+import checkers.model.ParallelPerft;
+import checkers.model.Perft;
+
+/**
+ * Runs perft (see {@link Perft}) on a game state, printing the node counts
+ * and how fast they were counted, in nodes per second.
+ *
+ * For usage, see the help message in exitWithHelp() below.
+ */
+class PerftMain {
+	private static final int DEFAULT_DEPTH = 9;
+
+	public static void main(String args[]) throws IOException {
+		// default options:
+		GameState state = new GameState(); // start of new game
+		int depth = DEFAULT_DEPTH;
+		int hashMegabytes = 0;
+		boolean divide = false;
+		int threads = 0;
+		boolean check = false;
+
+		for (int i = 0; i < args.length; ++i) {
+			if (args[i].equals("-h") || args[i].equals("-help")
+					|| args[i].equals("--help"))
+				exitWithHelp();
+			else if (args[i].equals("-f"))
+				state = FenIO.parseFen(args[++i]);
+			else if (args[i].equals("-F"))
+				state = FenIO.parseFenFile(args[++i]);
+			else if (args[i].equals("-n"))
+				depth = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-H"))
+				hashMegabytes = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-D"))
+				divide = true;
+			else if (args[i].equals("-p"))
+				threads = Integer.parseInt(args[++i]);
+			else if (args[i].equals("-C"))
+				check = true;
+			else
+				throw new IllegalArgumentException(
+						"could not parse option `" + args[i] + "'");
+		}
+
+		Perft perft = new Perft(hashMegabytes);
+		System.out.println(FenIO.outputFen(state));
+
+		if (threads > 0) {
+			ParallelPerft parallelPerft = new ParallelPerft(threads, hashMegabytes);
+			boolean ok = divide
+					? printParallelDivide(parallelPerft, check ? perft : null, state, depth)
+					: printParallelCounts(parallelPerft, check ? perft : null, state, depth);
+			parallelPerft.shutdown();
+			if (!ok)
+				System.exit(1);
+			return;
+		}
+
+		if (divide)
+			printDivide(perft, state, depth);
+		else
+			printCounts(perft, state, depth);
+
+		if (perft.isHashed())
+			System.out.println("hash hits " + perft.getHashHits()
+					+ " of " + perft.getHashProbes() + " probes");
+	}
+
+	private static void printCounts(Perft perft, GameState state, int depth) {
+		System.out.println(String.format("%5s %15s %10s %15s",
+				"depth", "nodes", "seconds", "nodes/s"));
+		for (int d = 1; d <= depth; ++d) {
+			long start = System.nanoTime();
+			long nodes = perft.count(state, d);
+			printResult(Integer.toString(d), nodes, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Prints the counts from a ParallelPerft, and, if a single-threaded
+	 * Perft is given, checks that it gets the same counts; returns false
+	 * if it doesn't.
+	 */
+	private static boolean printParallelCounts(ParallelPerft parallelPerft,
+			Perft perft, GameState state, int depth) {
+		System.out.println(String.format("%5s %15s %10s %15s   (%d threads)",
+				"depth", "nodes", "seconds", "nodes/s", parallelPerft.getThreads()));
+		for (int d = 1; d <= depth; ++d) {
+			long start = System.nanoTime();
+			long nodes = parallelPerft.count(state, d);
+			printResult(Integer.toString(d), nodes, System.nanoTime() - start);
+
+			if (perft != null) {
+				start = System.nanoTime();
+				long expected = perft.count(state, d);
+				printResult("1 thr", expected, System.nanoTime() - start);
+				if (nodes != expected) {
+					System.out.println("MISMATCH at depth " + d);
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static void printDivide(Perft perft, GameState state, int depth) {
+		long start = System.nanoTime();
+		long[] counts = perft.divide(state, depth);
+		printDivideCounts(state, depth, counts, System.nanoTime() - start);
+	}
+
+	/**
+	 * Prints the divide counts from a ParallelPerft, and, if a
+	 * single-threaded Perft is given, checks that it gets the same counts;
+	 * returns false if it doesn't.
+	 */
+	private static boolean printParallelDivide(ParallelPerft parallelPerft,
+			Perft perft, GameState state, int depth) {
+		long start = System.nanoTime();
+		long[] counts = parallelPerft.divide(state, depth);
+		printDivideCounts(state, depth, counts, System.nanoTime() - start);
+		System.out.println("(" + parallelPerft.getThreads() + " threads)");
+
+		if (perft != null) {
+			start = System.nanoTime();
+			long[] expected = perft.divide(state, depth);
+			long elapsed = System.nanoTime() - start;
+			long total = 0;
+			for (long count : expected)
+				total += count;
+			printResult("1 thr", total, elapsed);
+			if (!Arrays.equals(counts, expected)) {
+				System.out.println("MISMATCH at depth " + depth);
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Prints the given counts for each of the moves from the given state,
+	 * and their total, which took the given time to count.
+	 */
+	private static void printDivideCounts(GameState state, int depth, long[] counts,
+			long elapsed) {
+		MoveBuffer moves = new MoveBuffer(1);
+		int moveCount = state.generateMoves(moves, 0);
+
+		long total = 0;
+		for (int i = 0; i < moveCount; ++i) {
+			System.out.println(String.format("%-20s %15d",
+					PackedMove.toString(moves.get(0, i)), counts[i]));
+			total += counts[i];
+		}
+		System.out.println();
+		System.out.println(String.format("%5s %15s %10s %15s",
+				"depth", "nodes", "seconds", "nodes/s"));
+		printResult(Integer.toString(depth), total, elapsed);
+	}
+
+	private static void printResult(String depth, long nodes, long nanos) {
+		double seconds = nanos / 1e9;
+		System.out.println(String.format("%5s %15d %10.3f %15.0f",
+				depth, nodes, seconds, (seconds > 0) ? nodes / seconds : 0.0));
+	}
+
+	private static void exitWithHelp() {
+		System.out.println(
+			"Perft: counts the positions reachable from a checkers game state\n"
+			// ---------1---------2---------3---------4---------5---------6---------7---------
+			+ "\n"
+			+ "Usage: java -cp src checkers/PerftMain [OPTIONS]...\n"
+			+ "\n"
+			+ "Options:\n"
+			+ "  -n DEPTH    Counts to depths 1 thru DEPTH (default: " + DEFAULT_DEPTH + ")\n"
+			+ "  -D          Only counts to DEPTH, broken down by the first move (divide)\n"
+			+ "  -H MB       Uses a hash table of MB megabytes for repeated positions (per\n"
+			+ "                thread, with -p)\n"
+			+ "  -p THREADS  Counts in parallel with THREADS threads\n"
+			+ "  -C          With -p, checks each count against a single-threaded count\n"
+			+ "  -f FEN      Specifies the game state in a FEN notation string\n"
+			+ "                (default: start of a new game)\n"
+			+ "  -F FILE     Same as above, but reads FEN notation from FILE instead\n"
+			+ "  -h, --help  Output this message\n"
+			+ "\n"
+			+ "Example:\n"
+			+ "  java -cp src checkers/PerftMain -n 10 -H 256\n"
+			+ "    will count to depth 10 from the start of a game, with a hash table\n"
+		);
+		System.exit(0);
+	}
+}
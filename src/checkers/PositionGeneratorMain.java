@@ -0,0 +1,172 @@
+package checkers;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+
+import checkers.io.BinaryPositionIO;
+import checkers.io.FenIO;
+import checkers.model.GameState;
+import checkers.model.PlayerId;
+import checkers.model.PositionGenerator;
+
+/**
+ * Generates random game states (see {@link PositionGenerator}) and outputs
+ * them, one FEN string per line or in binary (see {@link BinaryPositionIO}).
+ *
+ * For usage, see the help message in exitWithHelp() below.
+ */
+class PositionGeneratorMain {
+	private static final long DEFAULT_COUNT = 1000;
+
+	public static void main(String args[]) throws IOException {
+		// default options:
+		long count = DEFAULT_COUNT;
+		long seed = 0;
+		String outputFile = null;
+		boolean binary = false;
+		int[] blackPieces = { 1, 12 };
+		int[] whitePieces = { 1, 12 };
+		int[] blackMen = { 0, 12 };
+		int[] whiteMen = { 0, 12 };
+		int[] blackKings = { 0, 12 };
+		int[] whiteKings = { 0, 12 };
+		PlayerId playerToMove = null;
+		Boolean capturePending = null;
+
+		for (int i = 0; i < args.length; ++i) {
+			if (args[i].equals("-h") || args[i].equals("-help")
+					|| args[i].equals("--help"))
+				exitWithHelp();
+			else if (args[i].equals("-n"))
+				count = Long.parseLong(args[++i]);
+			else if (args[i].equals("-s"))
+				seed = Long.parseLong(args[++i]);
+			else if (args[i].equals("-b"))
+				blackPieces = parseRange(args[++i]);
+			else if (args[i].equals("-w"))
+				whitePieces = parseRange(args[++i]);
+			else if (args[i].equals("-bm"))
+				blackMen = parseRange(args[++i]);
+			else if (args[i].equals("-wm"))
+				whiteMen = parseRange(args[++i]);
+			else if (args[i].equals("-bk"))
+				blackKings = parseRange(args[++i]);
+			else if (args[i].equals("-wk"))
+				whiteKings = parseRange(args[++i]);
+			else if (args[i].equals("-p"))
+				playerToMove = parsePlayer(args[++i]);
+			else if (args[i].equals("-c"))
+				capturePending = parseYesNo(args[++i]);
+			else if (args[i].equals("-o"))
+				outputFile = args[++i];
+			else if (args[i].equals("-B"))
+				binary = true;
+			else
+				throw new IllegalArgumentException(
+						"could not parse option `" + args[i] + "'");
+		}
+
+		PositionGenerator generator = new PositionGenerator(seed);
+		generator.setBlackPieces(blackPieces[0], blackPieces[1]);
+		generator.setWhitePieces(whitePieces[0], whitePieces[1]);
+		generator.setBlackMen(blackMen[0], blackMen[1]);
+		generator.setWhiteMen(whiteMen[0], whiteMen[1]);
+		generator.setBlackKings(blackKings[0], blackKings[1]);
+		generator.setWhiteKings(whiteKings[0], whiteKings[1]);
+		generator.setPlayerToMove(playerToMove);
+		generator.setCapturePending(capturePending);
+
+		OutputStream out = new BufferedOutputStream((outputFile != null)
+				? new FileOutputStream(outputFile) : System.out);
+
+		long start = System.nanoTime();
+		try {
+			if (binary) {
+				final DataOutputStream data = new DataOutputStream(out);
+				generator.stream(count).forEachOrdered(state -> write(data, state));
+				data.flush();
+			} else {
+				final PrintStream text = new PrintStream(out);
+				generator.stream(count).forEachOrdered(
+						state -> text.println(FenIO.outputFen(state)));
+				text.flush();
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		if (outputFile != null)
+			out.close();
+		System.err.println(String.format("%d states in %.3f seconds (%.0f states/s)",
+				count, seconds, (seconds > 0) ? count / seconds : 0.0));
+	}
+
+	private static void write(DataOutputStream out, GameState state) {
+		try {
+			BinaryPositionIO.writePosition(out, state);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static int[] parseRange(String arg) {
+		String[] parts = arg.split(",");
+		int min = Integer.parseInt(parts[0]);
+		int max = (parts.length > 1) ? Integer.parseInt(parts[1]) : min;
+		return new int[] { min, max };
+	}
+
+	private static PlayerId parsePlayer(String arg) {
+		if (arg.equalsIgnoreCase("b"))
+			return PlayerId.BLACK;
+		else if (arg.equalsIgnoreCase("w"))
+			return PlayerId.WHITE;
+		throw new IllegalArgumentException("expected b or w, not `" + arg + "'");
+	}
+
+	private static Boolean parseYesNo(String arg) {
+		if (arg.equalsIgnoreCase("yes"))
+			return Boolean.TRUE;
+		else if (arg.equalsIgnoreCase("no"))
+			return Boolean.FALSE;
+		throw new IllegalArgumentException("expected yes or no, not `" + arg + "'");
+	}
+
+	private static void exitWithHelp() {
+		System.out.println(
+			"Generates random checkers game states that can happen in a game\n"
+			// ---------1---------2---------3---------4---------5---------6---------7---------
+			+ "\n"
+			+ "Usage: java -cp src checkers/PositionGeneratorMain [OPTIONS]...\n"
+			+ "\n"
+			+ "Options:\n"
+			+ "  -n COUNT    Generates COUNT states (default: " + DEFAULT_COUNT + ")\n"
+			+ "  -s SEED     Seeds the generator with SEED (default: 0); the same seed\n"
+			+ "                always gives the same states\n"
+			+ "  -b MIN,MAX  Black has between MIN and MAX pieces (default: 1,12)\n"
+			+ "  -w MIN,MAX  White has between MIN and MAX pieces (default: 1,12)\n"
+			+ "  -bm MIN,MAX Black has between MIN and MAX men (default: 0,12)\n"
+			+ "  -wm MIN,MAX White has between MIN and MAX men (default: 0,12)\n"
+			+ "  -bk MIN,MAX Black has between MIN and MAX kings (default: 0,12)\n"
+			+ "  -wk MIN,MAX White has between MIN and MAX kings (default: 0,12)\n"
+			+ "  -p b|w      Black or white is to move (default: either)\n"
+			+ "  -c yes|no   The player to move has a jump to make, or not (default:\n"
+			+ "                either)\n"
+			+ "  -o FILE     Outputs to FILE (default: standard output)\n"
+			+ "  -B          Outputs in binary, " + BinaryPositionIO.RECORD_BYTES
+					+ " bytes per state, instead of FEN\n"
+			+ "  -h, --help  Output this message\n"
+			+ "\n"
+			+ "Example:\n"
+			+ "  java -cp src checkers/PositionGeneratorMain -n 100000 -b 4,6 -w 4,6 -c no\n"
+			+ "    will output 100000 states with 4 to 6 pieces each and no jumps to make\n"
+		);
+		System.exit(0);
+	}
+}
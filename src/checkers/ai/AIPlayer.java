@@ -1,5 +1,6 @@
 package checkers.ai;
 
+import checkers.GameClock;
 import checkers.Player;
 
 /**
@@ -11,6 +12,21 @@ import checkers.Player;
 public abstract class AIPlayer extends Player {
 	protected int searches;
 	protected int evals;
+	protected int hashProbes;
+	protected int hashHits;
+
+	/**
+	 * Clock of the game being played, or null if it is untimed.
+	 */
+	protected GameClock clock;
+
+	/**
+	 * Gives this player the clock of the game it is playing (or null if it
+	 * is untimed).  Players that search to a fixed depth ignore it.
+	 */
+	public void setClock(GameClock clock) {
+		this.clock = clock;
+	}
 
 	public int getSearches() {
 		return searches;
@@ -19,4 +35,28 @@ public abstract class AIPlayer extends Player {
 	public int getEvals() {
 		return evals;
 	}
+
+	/**
+	 * Returns the number of transposition table probes in the last search
+	 * (0 if the player doesn't use a {@link TranspositionTable}).
+	 */
+	public int getHashProbes() {
+		return hashProbes;
+	}
+
+	/**
+	 * Returns the number of transposition table probes in the last search
+	 * that found the position.
+	 */
+	public int getHashHits() {
+		return hashHits;
+	}
+
+	/**
+	 * Returns the fraction of transposition table probes in the last search
+	 * that found the position, or 0 if there weren't any.
+	 */
+	public double getHashHitRate() {
+		return (hashProbes > 0) ? (double) hashHits / hashProbes : 0.0;
+	}
 }
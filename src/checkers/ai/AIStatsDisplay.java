@@ -6,7 +6,8 @@ import checkers.model.Move;
 
 /**
  * Displays statistics for a given {@link AIPlayer} in the number of
- * searches and evaluations.
+ * searches and evaluations, and transposition table hits (if it uses
+ * one).
  *
  * @author Scott Bressler
  */
@@ -14,6 +15,8 @@ public class AIStatsDisplay extends Display {
 	AIPlayer aiPlayer;
 	private int sumSearches;
 	private int sumEvals;
+	private long sumHashProbes;
+	private long sumHashHits;
 
 	public AIStatsDisplay(AIPlayer aip) {
 		aiPlayer = aip;
@@ -28,6 +31,8 @@ public class AIStatsDisplay extends Display {
 	public void update(Move move, GameState newState) {
 		sumSearches += aiPlayer.getSearches();
 		sumEvals += aiPlayer.getEvals();
+		sumHashProbes += aiPlayer.getHashProbes();
+		sumHashHits += aiPlayer.getHashHits();
 
 		System.out.println("---------------------------------------");
 		System.out.println("AI Stats for AIPlayer Type: " + aiPlayer);
@@ -35,6 +40,14 @@ public class AIStatsDisplay extends Display {
 		System.out.println(aiPlayer.getSearches() + "\t" + aiPlayer.getEvals());
 		System.out.println("Sums:");
 		System.out.println(sumSearches + "\t" + sumEvals);
+		if (sumHashProbes > 0) {
+			System.out.println("Hash hits\tProbes\tRate");
+			System.out.println(aiPlayer.getHashHits() + "\t" + aiPlayer.getHashProbes()
+					+ "\t" + String.format("%.1f%%", 100 * aiPlayer.getHashHitRate()));
+			System.out.println("Sums:");
+			System.out.println(sumHashHits + "\t" + sumHashProbes
+					+ "\t" + String.format("%.1f%%", 100.0 * sumHashHits / sumHashProbes));
+		}
 	}
 
 }
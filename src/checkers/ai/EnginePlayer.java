@@ -0,0 +1,48 @@
+package checkers.ai;
+
+import checkers.model.GameState;
+import checkers.model.Move;
+
+/**
+ * Base class for the players that search with a {@link SearchEngine}, each
+ * of which turns on its own combination of the engine's features.
+ */
+public abstract class EnginePlayer extends AIPlayer {
+	protected final SearchEngine engine;
+
+	/**
+	 * Constructs a Player that searches with the given engine.  Clones
+	 * share their original's engine (and so its table, if it has one).
+	 */
+	protected EnginePlayer(SearchEngine engine) {
+		super();
+		this.engine = engine;
+
+		// statistics for each search
+		this.searches = 0;
+		this.evals = 0;
+	}
+
+	@Override
+	public Move chooseMove(GameState state) {
+		SearchContext context = engine.context();
+		try {
+			return engine.chooseMove(state, context);
+		} finally {
+			searches = context.getSearches();
+			evals = context.getEvals();
+			hashProbes = context.getHashProbes();
+			hashHits = context.getHashHits();
+		}
+	}
+
+	@Override
+	public Object clone() throws CloneNotSupportedException {
+		EnginePlayer clone = (EnginePlayer) super.clone();
+		clone.evals = 0;
+		clone.searches = 0;
+		clone.hashProbes = 0;
+		clone.hashHits = 0;
+		return clone;
+	}
+}
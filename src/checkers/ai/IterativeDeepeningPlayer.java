@@ -0,0 +1,242 @@
+package checkers.ai;
+
+import java.util.List;
+
+import checkers.model.GameState;
+import checkers.model.Move;
+import checkers.model.PackedMove;
+import checkers.model.PlayerId;
+
+/**
+ * Negamax player that searches for a given amount of time instead of to a
+ * given depth, so that it takes about as long over every move, however
+ * big the game tree is.
+ * <p>
+ * It searches to depth 1, then 2, and so on (iterative deepening), until
+ * the time is up.  Each finished iteration orders the moves for the next:
+ * the moves at the root are tried best first, by their scores from the
+ * last iteration, and at every ply, the move on the last iteration's
+ * principal variation (the line of best play it found) is tried first.
+ * So the deeper iterations get much better alpha-beta pruning, which
+ * makes up for most of the time spent on the shallower ones.
+ * <p>
+ * There are two deadlines for each move: a new iteration isn't started
+ * after the soft deadline is halfway up (as it probably wouldn't finish),
+ * and the search is stopped wherever it is at the hard deadline.  The
+ * soft deadline is pushed back (up to the hard one) when the last
+ * iteration changed its mind about the best move, or its score dropped,
+ * since then a deeper search is most worthwhile.  The time per move is
+ * either fixed, or, if the game has a {@link checkers.GameClock}, a share
+ * of the time left on the clock.
+ * <p>
+ * Below the root, the iterations are searches by a {@link SearchEngine}
+ * that follows the principal variation, and stops at the hard deadline.
+ */
+public class IterativeDeepeningPlayer extends EnginePlayer implements Cloneable {
+	/**
+	 * Deepest search to try, e.g. when there are only a few moves left in
+	 * the game.
+	 */
+	public static final int MAX_DEPTH = 64;
+
+	/**
+	 * Number of nodes searched between checks of the time.
+	 */
+	private static final int CHECK_INTERVAL = 1024;
+
+	/**
+	 * With a clock, the soft deadline gives each move 1/MOVES_TO_GO of the
+	 * time left, plus most of the increment.
+	 */
+	private static final int MOVES_TO_GO = 25;
+
+	/**
+	 * Time kept in hand with a clock, for the time taken to make a move
+	 * after it is chosen.
+	 */
+	private static final long SAFETY_MILLIS = 50;
+
+	/**
+	 * A drop in score (about a third of a man) that makes it worth taking
+	 * more time over a move.
+	 */
+	private static final int SCORE_DROP = 30;
+
+	/**
+	 * Score of a won game (see {@link Utils#utilityOf(GameState)}); once a
+	 * search finds one, searching deeper won't change the move.
+	 */
+	private static final int WIN = 10000;
+
+	private long moveMillis;
+
+	private int depthReached;
+
+	/**
+	 * Constructs a Player that searches for at most moveMillis milliseconds
+	 * per move.  If it is given a game clock (see
+	 * {@link AIPlayer#setClock(checkers.GameClock)}), it budgets by the
+	 * clock instead, and moveMillis, if positive, only caps that.
+	 */
+	public IterativeDeepeningPlayer(long moveMillis) {
+		this(moveMillis, null);
+	}
+
+	/**
+	 * Constructs a Player like the above, which also keeps the results of
+	 * its searches in the given transposition table (if not null), and
+	 * reuses them.  Clones share their original's table.
+	 */
+	public IterativeDeepeningPlayer(long moveMillis, TranspositionTable table) {
+		super(new SearchEngine(MAX_DEPTH));
+		engine.setPvFollowing(true);
+		engine.setTable(table);
+		this.moveMillis = moveMillis;
+	}
+
+	/**
+	 * Returns the depth of the last iteration the last search finished.
+	 */
+	public int getDepthReached() {
+		return depthReached;
+	}
+
+	@Override
+	public Move chooseMove(GameState state) {
+		long start = System.nanoTime();
+		SearchContext context = engine.context();
+		context.reset();
+		try {
+			return chooseMove(state, context, start);
+		} finally {
+			searches = context.getSearches();
+			evals = context.getEvals();
+			hashProbes = context.getHashProbes();
+			hashHits = context.getHashHits();
+		}
+	}
+
+	private Move chooseMove(GameState state, SearchContext context, long start) {
+		depthReached = 0;
+
+		if (state.gameIsOver()) throw new IllegalArgumentException("Can't make a decision; state is terminal.");
+
+		List<? extends Move> choices = state.possibleMoves();
+		if (choices.size() == 1) {
+			return choices.get(0);
+		}
+
+		long softMillis, hardMillis;
+		if (clock != null) {
+			PlayerId me = state.playerToMove();
+			long left = Math.max(clock.getRemainingMillis(me) - clock.getTurnMillis()
+					- SAFETY_MILLIS, 1);
+			softMillis = left / MOVES_TO_GO + clock.getIncrementMillis() * 3 / 4;
+			hardMillis = Math.min(softMillis * 4, left / 2);
+			if (moveMillis > 0)
+				hardMillis = Math.min(hardMillis, moveMillis);
+		} else {
+			hardMillis = moveMillis;
+			softMillis = moveMillis * 3 / 5;
+		}
+		hardMillis = Math.max(hardMillis, 1);
+		softMillis = Math.max(Math.min(softMillis, hardMillis), 1);
+		final long hardDeadline = start + hardMillis * 1000000;
+		context.setStopCondition(new SearchContext.StopCondition() {
+			public boolean shouldStop(SearchContext context) {
+				return (context.getSearches() & (CHECK_INTERVAL - 1)) == 0
+						&& System.nanoTime() >= hardDeadline;
+			}
+		});
+
+		engine.newSearch();
+
+		// the root moves are tried in the order of the last iteration's
+		// scores for them
+		int choiceCount = choices.size();
+		long[] packed = new long[choiceCount];
+		int[] order = new int[choiceCount];
+		int[] scores = new int[choiceCount];
+		for (int i = 0; i < choiceCount; ++i) {
+			packed[i] = PackedMove.fromMove(choices.get(i));
+			order[i] = i;
+		}
+
+		int best = -1;
+		int bestScore = -SearchEngine.INFINITY;
+		for (int depth = 1; depth <= MAX_DEPTH; ++depth) {
+			int iterationBest = -1;
+			int alpha = -SearchEngine.INFINITY;
+			int beta = SearchEngine.INFINITY;
+			for (int k = 0; k < choiceCount; ++k) {
+				int i = order[k];
+
+				// the first move is the last iteration's best, so it starts
+				// off its principal variation
+				context.followingPv = (k == 0);
+				int util = engine.searchMove(context, state, packed[i], depth, alpha, beta);
+				if (context.isStopped())
+					break;
+
+				scores[i] = util;
+				if (util > alpha) {
+					alpha = util;
+					iterationBest = i;
+				}
+			}
+
+			// a move that was fully searched in an unfinished iteration is
+			// still better than the last iteration's best, which comes first
+			if (iterationBest < 0)
+				break;
+			boolean unstable = depth > 1
+					&& (iterationBest != best || alpha < bestScore - SCORE_DROP);
+			best = iterationBest;
+			bestScore = alpha;
+			if (context.isStopped())
+				break;
+
+			depthReached = depth;
+			context.savePv();
+			sortByScore(order, scores, best);
+
+			if (Math.abs(bestScore) >= WIN)
+				break;
+
+			// the next iteration would take longer than all of this one's,
+			// so only start it if there is time for that
+			long limit = unstable ? hardMillis : softMillis;
+			if ((System.nanoTime() - start) / 1000000 * 2 > limit)
+				break;
+		}
+
+		return choices.get(best);
+	}
+
+	/**
+	 * Sorts the root moves by their scores, best first, keeping the order
+	 * of equal ones, but with the best move found first in any case (it
+	 * may be tied with moves that only failed low).
+	 */
+	private static void sortByScore(int[] order, int[] scores, int best) {
+		for (int i = 1; i < order.length; ++i) {
+			int move = order[i];
+			int j = i;
+			while (j > 0 && (move == best || (order[j - 1] != best
+					&& scores[order[j - 1]] < scores[move]))) {
+				order[j] = order[j - 1];
+				--j;
+			}
+			order[j] = move;
+		}
+	}
+
+	@Override
+	public String toString() {
+		if (clock != null)
+			return "Iterative deepening player on the clock"
+					+ ((moveMillis > 0) ? ", at most " + moveMillis + " ms per move" : "");
+		return "Iterative deepening player with " + moveMillis + " ms per move";
+	}
+
+}
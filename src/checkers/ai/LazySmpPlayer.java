@@ -0,0 +1,260 @@
+package checkers.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import checkers.model.GameState;
+import checkers.model.Move;
+import checkers.model.PackedMove;
+
+/**
+ * Multi-threaded negamax player, using "lazy SMP": every thread searches
+ * the whole game tree from the root, by iterative deepening, and the
+ * threads only work together through a shared {@link TranspositionTable}.
+ * Whatever one thread finds, the others can then skip, or use to order
+ * their moves, so the main thread (the one that called chooseMove, whose
+ * move is the one returned) gets to its full depth sooner.
+ * <p>
+ * So that the threads don't all search the same nodes in the same order,
+ * the helper threads vary it: half of them search one ply deeper than the
+ * main thread, and each starts off trying the root moves in a different
+ * order.  They are stopped as soon as the main thread is done.
+ * <p>
+ * Each thread drives the same {@link SearchEngine}, with its own
+ * {@link SearchContext}, through the root moves of each iteration.
+ */
+public class LazySmpPlayer extends EnginePlayer implements Cloneable {
+	/**
+	 * Size of the table made if none is given.
+	 */
+	private static final int DEFAULT_TABLE_MEGABYTES = 64;
+
+	private int searchDepth;
+	private int threads;
+
+	/**
+	 * Runs the helper threads; made when first needed.
+	 */
+	private ExecutorService pool;
+
+	/**
+	 * The search state of each thread, the main thread's first.
+	 */
+	private Searcher[] searchers;
+
+	/**
+	 * Set when the main thread is done, to stop the helpers.
+	 */
+	private volatile boolean stop;
+
+	/**
+	 * Nodes searched by each thread in the last search.
+	 */
+	private int[] threadSearches;
+
+	/**
+	 * Constructs a Player that searches to searchDepth with the given
+	 * number of threads, which share a table of the default size.
+	 */
+	public LazySmpPlayer(int searchDepth, int threads) {
+		this(searchDepth, threads, null);
+	}
+
+	/**
+	 * Constructs a Player like the above, with the threads sharing the
+	 * given transposition table (or one of the default size, if null).
+	 */
+	public LazySmpPlayer(int searchDepth, int threads, TranspositionTable table) {
+		// the helpers that search deeper need the room
+		super(new SearchEngine(searchDepth + 1));
+		if (threads < 1)
+			throw new IllegalArgumentException("need at least one thread, not " + threads);
+
+		engine.setTable((table != null) ? table : new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+		this.searchDepth = searchDepth;
+		this.threads = threads;
+		this.threadSearches = new int[threads];
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Returns the number of nodes each thread searched in the last search,
+	 * the main thread's first.
+	 */
+	public int[] getThreadSearches() {
+		return threadSearches.clone();
+	}
+
+	@Override
+	public Move chooseMove(GameState state) {
+		searches = 1;
+		evals = 0;
+		hashProbes = 0;
+		hashHits = 0;
+		threadSearches = new int[threads];
+
+		if (state.gameIsOver()) throw new IllegalArgumentException("Can't make a decision; state is terminal.");
+
+		List<? extends Move> choices = state.possibleMoves();
+		if (choices.size() == 1) {
+			return choices.get(0);
+		}
+
+		if (searchers == null) {
+			searchers = new Searcher[threads];
+			for (int i = 0; i < threads; ++i)
+				searchers[i] = new Searcher(i);
+		}
+		if (pool == null && threads > 1) {
+			pool = Executors.newFixedThreadPool(threads - 1, new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "lazy SMP helper");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+
+		engine.newSearch();
+		stop = false;
+
+		List<Future<?>> helpers = new ArrayList<Future<?>>();
+		for (int i = 1; i < threads; ++i) {
+			final Searcher searcher = searchers[i];
+			final GameState copy = new GameState(state);
+			helpers.add(pool.submit(new Runnable() {
+				public void run() {
+					searcher.search(copy);
+				}
+			}));
+		}
+
+		Move bestChoice;
+		try {
+			bestChoice = searchers[0].search(state);
+		} finally {
+			stop = true;
+			for (Future<?> helper : helpers)
+				waitFor(helper);
+		}
+
+		for (int i = 0; i < threads; ++i) {
+			SearchContext context = searchers[i].context;
+			threadSearches[i] = context.getSearches();
+			searches += context.getSearches();
+			evals += context.getEvals();
+			hashProbes += context.getHashProbes();
+			hashHits += context.getHashHits();
+		}
+
+		return bestChoice;
+	}
+
+	private static void waitFor(Future<?> helper) {
+		try {
+			helper.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			throw new RuntimeException("lazy SMP helper failed", e.getCause());
+		}
+	}
+
+	/**
+	 * Stops the helper threads for good.
+	 */
+	public void shutdown() {
+		if (pool != null)
+			pool.shutdown();
+		pool = null;
+	}
+
+	/**
+	 * One thread's search.
+	 */
+	private class Searcher {
+		private final int id;
+		private final SearchContext context;
+
+		Searcher(int id) {
+			this.id = id;
+			context = engine.newContext();
+
+			// only helpers are stopped; the main thread always finishes
+			if (id != 0) {
+				context.setStopCondition(new SearchContext.StopCondition() {
+					public boolean shouldStop(SearchContext context) {
+						return stop;
+					}
+				});
+			}
+		}
+
+		/**
+		 * Searches from the given state by iterative deepening, and returns
+		 * the best move found, or null if it was stopped before finding
+		 * one.
+		 */
+		Move search(GameState state) {
+			context.reset();
+
+			// helpers vary the depths and the order of the root moves
+			int maxDepth = searchDepth + ((id % 2 == 1) ? 1 : 0);
+			List<? extends Move> choices = state.possibleMoves();
+			int choiceCount = choices.size();
+			long[] packed = new long[choiceCount];
+			int[] order = new int[choiceCount];
+			for (int k = 0; k < choiceCount; ++k) {
+				packed[k] = PackedMove.fromMove(choices.get(k));
+				order[k] = (k + id) % choiceCount;
+			}
+
+			Move bestChoice = null;
+			for (int depth = 1 + (id % 2); depth <= maxDepth; ++depth) {
+				int best = -1;
+				int alpha = -SearchEngine.INFINITY;
+				int beta = SearchEngine.INFINITY;
+				for (int k = 0; k < choiceCount; ++k) {
+					int util = engine.searchMove(context, state, packed[order[k]], depth, alpha, beta);
+					if (context.isStopped())
+						return bestChoice;
+
+					if (util > alpha) {
+						alpha = util;
+						best = k;
+					}
+				}
+
+				// the best move goes first in the next iteration
+				int move = order[best];
+				System.arraycopy(order, 0, order, 1, best);
+				order[0] = move;
+				bestChoice = choices.get(move);
+			}
+			return bestChoice;
+		}
+	}
+
+	@Override
+	public Object clone() throws CloneNotSupportedException {
+		LazySmpPlayer clone = (LazySmpPlayer) super.clone();
+		clone.threadSearches = new int[threads];
+		clone.pool = null;
+		clone.searchers = null;
+		return clone;
+	}
+
+	@Override
+	public String toString() {
+		return "Lazy SMP player with depth " + searchDepth + ", " + threads + " threads";
+	}
+
+}
@@ -0,0 +1,161 @@
+package checkers.ai;
+
+import checkers.model.PackedMove;
+
+/**
+ * Statistics about which moves caused cutoffs in earlier searches, for
+ * ordering moves without searching them first.  Moves are tried in this
+ * order:
+ * <ol>
+ * <li>the best move found for the position before (from a transposition
+ *     table), if known;</li>
+ * <li>jumps, the more pieces they take the sooner;</li>
+ * <li>the two killer moves of the ply: the last two different moves that
+ *     caused cutoffs at the same ply, which often do so again in the
+ *     sibling positions;</li>
+ * <li>the counter-move: the last move that caused a cutoff in reply to
+ *     the move just made;</li>
+ * <li>the rest, by their history: how often, and how deep, a move from
+ *     the same start position to the same end position caused cutoffs
+ *     (a "butterfly" table).</li>
+ * </ol>
+ * (As jumps are forced, the moves from a position are either all jumps or
+ * all not, so among jumps taking as many pieces, the rest of the order
+ * applies.)
+ * <p>
+ * A search records the move it makes at each ply with
+ * {@link #setMove(int, long)}, and calls {@link #cutoff(int, int)} when
+ * the move causes a cutoff.  A MoveHistory is meant for one player, as the
+ * statistics carry over from one of its searches to the next.
+ */
+public class MoveHistory {
+	/**
+	 * Deepest ply that killer moves are kept for.
+	 */
+	public static final int MAX_PLY = 64;
+
+	/**
+	 * Scores of the moves of each kind; each jump scores JUMP_SCORE more
+	 * per piece taken.
+	 */
+	private static final int JUMP_SCORE = 1 << 24;
+	private static final int KILLER_SCORE = 3 << 21;
+	private static final int SECOND_KILLER_SCORE = 2 << 21;
+	private static final int COUNTER_MOVE_SCORE = 1 << 21;
+
+	/**
+	 * History scores are halved when one gets this high, so they stay
+	 * below the counter-move score, and recent cutoffs count for more.
+	 */
+	private static final int HISTORY_LIMIT = 1 << 20;
+
+	/**
+	 * The two killer moves at each ply, the latest first.
+	 */
+	private final long[][] killers = new long[MAX_PLY][2];
+
+	/**
+	 * History score of each move, by its start and end positions.
+	 */
+	private final int[][] history = new int[32][32];
+
+	/**
+	 * The latest move that caused a cutoff after each move, by its start
+	 * and end positions.
+	 */
+	private final long[][] counterMoves = new long[32][32];
+
+	/**
+	 * The move made at each ply of the current line.
+	 */
+	private final long[] line = new long[MAX_PLY];
+
+	/**
+	 * Gets ready for a new search: the killer moves are forgotten, as the
+	 * plies are counted from a different root, and the history counts
+	 * for less.
+	 */
+	public void newSearch() {
+		for (long[] plyKillers : killers) {
+			plyKillers[0] = PackedMove.NONE;
+			plyKillers[1] = PackedMove.NONE;
+		}
+		ageHistory();
+	}
+
+	/**
+	 * Scores the moves in the picker's list for the given ply, so that
+	 * they are picked in the order they should be tried, with the given
+	 * move (from a transposition table; it may be PackedMove.NONE) first.
+	 */
+	public void score(MovePicker picker, int ply, long hashMove) {
+		long previous = previousMove(ply);
+		int count = picker.size(ply);
+		for (int i = 0; i < count; ++i) {
+			long move = picker.get(ply, i);
+			picker.setScore(ply, i, (move == hashMove) ? Integer.MAX_VALUE : score(move, ply, previous));
+		}
+	}
+
+	/**
+	 * Returns the score of the given move at the given ply, made in reply
+	 * to the given move; the higher the score, the sooner it is tried.
+	 */
+	int score(long move, int ply, long previous) {
+		int score = PackedMove.captureCount(move) * JUMP_SCORE;
+		if (ply < MAX_PLY && move == killers[ply][0])
+			score += KILLER_SCORE;
+		else if (ply < MAX_PLY && move == killers[ply][1])
+			score += SECOND_KILLER_SCORE;
+		else if (previous != PackedMove.NONE && move == counterMoves
+				[PackedMove.startPos(previous) - 1][PackedMove.endPos(previous) - 1])
+			score += COUNTER_MOVE_SCORE;
+		else
+			score += history[PackedMove.startPos(move) - 1][PackedMove.endPos(move) - 1];
+		return score;
+	}
+
+	/**
+	 * Records the move made at the given ply.
+	 */
+	public void setMove(int ply, long move) {
+		if (ply < MAX_PLY)
+			line[ply] = move;
+	}
+
+	/**
+	 * Records that the move made at the given ply, with the given depth
+	 * left to search, caused a cutoff.
+	 */
+	public void cutoff(int ply, int depth) {
+		if (ply >= MAX_PLY)
+			return;
+		long move = line[ply];
+
+		if (move != killers[ply][0]) {
+			killers[ply][1] = killers[ply][0];
+			killers[ply][0] = move;
+		}
+
+		long previous = previousMove(ply);
+		if (previous != PackedMove.NONE)
+			counterMoves[PackedMove.startPos(previous) - 1][PackedMove.endPos(previous) - 1] = move;
+
+		// deeper cutoffs save more work, so they count for more
+		int[] from = history[PackedMove.startPos(move) - 1];
+		int to = PackedMove.endPos(move) - 1;
+		from[to] += depth * depth;
+		if (from[to] >= HISTORY_LIMIT)
+			ageHistory();
+	}
+
+	private long previousMove(int ply) {
+		return (ply > 0 && ply <= MAX_PLY) ? line[ply - 1] : PackedMove.NONE;
+	}
+
+	private void ageHistory() {
+		for (int[] from : history)
+			for (int to = 0; to < from.length; ++to)
+				from[to] /= 2;
+	}
+}
@@ -0,0 +1,149 @@
+package checkers.ai;
+
+import java.util.Arrays;
+
+import checkers.model.GameState;
+import checkers.model.MoveBuffer;
+import checkers.model.PackedMove;
+
+/**
+ * Moves in {@link PackedMove} form, each with a score, to be tried best
+ * first, with a separate list for each ply of a search (like
+ * {@link MoveBuffer}).
+ * <p>
+ * The moves aren't sorted up front: each call to {@link #next(int)} picks
+ * the best of the moves left, so a node that is cut off after its first
+ * move or two never pays for ordering the rest.  Moves with equal scores
+ * come out in the order they were added.  Typical usage is:
+ * <pre>
+ *    int count = picker.generate(state, ply);
+ *    for (int i = 0; i &lt; count; ++i)
+ *        picker.setScore(ply, i, scoreOf(picker.get(ply, i)));
+ *    for (long move; (move = picker.next(ply)) != PackedMove.NONE; ) {
+ *        ...
+ *    }
+ * </pre>
+ * It is not thread-safe; each search thread needs its own.
+ */
+public class MovePicker {
+	private final MoveBuffer buffer;
+	private final int[][] scores;
+
+	/**
+	 * Number of moves already picked at each ply.
+	 */
+	private final int[] picked;
+
+	/**
+	 * Constructs a picker for plies 0 thru maxPly - 1.
+	 */
+	public MovePicker(int maxPly) {
+		buffer = new MoveBuffer(maxPly);
+		scores = new int[maxPly][buffer.moves(0).length];
+		picked = new int[maxPly];
+	}
+
+	/**
+	 * Returns the number of plies this picker has move lists for.
+	 */
+	public int maxPly() {
+		return picked.length;
+	}
+
+	/**
+	 * Fills in the given ply's list with the possible moves from the given
+	 * state, in the order of {@link GameState#generateMoves}, all scored
+	 * 0.
+	 *
+	 * @return the number of moves generated
+	 */
+	public int generate(GameState state, int ply) {
+		int count = state.generateMoves(buffer, ply);
+		int[] plyScores = scoresFor(ply, count);
+		Arrays.fill(plyScores, 0, count, 0);
+		picked[ply] = 0;
+		return count;
+	}
+
+	/**
+	 * Empties the given ply's list.
+	 */
+	public void clear(int ply) {
+		buffer.clear(ply);
+		picked[ply] = 0;
+	}
+
+	/**
+	 * Appends a move with the given score to the given ply's list.
+	 */
+	public void add(int ply, long move, int score) {
+		int index = buffer.size(ply);
+		buffer.add(ply, move);
+		scoresFor(ply, index + 1)[index] = score;
+	}
+
+	/**
+	 * Returns the number of moves in the given ply's list, including any
+	 * already picked.
+	 */
+	public int size(int ply) {
+		return buffer.size(ply);
+	}
+
+	/**
+	 * Returns the move at the given index in the given ply's list; until
+	 * moves are picked, that is the order they were added in.
+	 */
+	public long get(int ply, int index) {
+		return buffer.get(ply, index);
+	}
+
+	/**
+	 * Sets the score of the move at the given index in the given ply's
+	 * list (see {@link #get(int, int)}).
+	 */
+	public void setScore(int ply, int index, int score) {
+		assert index < buffer.size(ply);
+		scores[ply][index] = score;
+	}
+
+	/**
+	 * Returns the best of the moves not yet picked from the given ply's
+	 * list, the first added if several are as good, or
+	 * {@link PackedMove#NONE} if there are no more.
+	 */
+	public long next(int ply) {
+		int first = picked[ply];
+		int size = buffer.size(ply);
+		if (first >= size)
+			return PackedMove.NONE;
+
+		int[] plyScores = scores[ply];
+		int best = first;
+		for (int i = first + 1; i < size; ++i)
+			if (plyScores[i] > plyScores[best])
+				best = i;
+
+		// the moves passed over move up one, so they stay in order
+		long[] moves = buffer.moves(ply);
+		long move = moves[best];
+		int score = plyScores[best];
+		System.arraycopy(moves, first, moves, first + 1, best - first);
+		System.arraycopy(plyScores, first, plyScores, first + 1, best - first);
+		moves[first] = move;
+		plyScores[first] = score;
+
+		picked[ply] = first + 1;
+		return move;
+	}
+
+	/**
+	 * Returns the given ply's scores, grown to hold at least the given
+	 * number.
+	 */
+	private int[] scoresFor(int ply, int count) {
+		if (scores[ply].length < count)
+			scores[ply] = Arrays.copyOf(scores[ply], Math.max(count, 2 * scores[ply].length));
+		return scores[ply];
+	}
+}
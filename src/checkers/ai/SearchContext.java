@@ -0,0 +1,168 @@
+package checkers.ai;
+
+import checkers.model.StagedMoves;
+import checkers.model.UndoStack;
+
+/**
+ * Everything a {@link SearchEngine} search changes as it goes: the move
+ * lists and undo records for each ply, the principal variation, and the
+ * statistics.  Making these for every search would cost more than a
+ * shallow search itself, so each thread keeps one per engine (see
+ * {@link SearchEngine#context()}) and reuses it.
+ */
+public class SearchContext {
+	/**
+	 * Decides when a search is to be stopped before it is finished, e.g.
+	 * because its time is up, or its result is no longer wanted.
+	 */
+	interface StopCondition {
+		/**
+		 * Returns true if the search with the given context should stop;
+		 * this is asked at every node.
+		 */
+		boolean shouldStop(SearchContext context);
+	}
+
+	/**
+	 * Generates the moves at each ply, as they are needed, when they are
+	 * searched in the order they are generated.
+	 */
+	final StagedMoves moves;
+
+	/**
+	 * Holds the moves at each ply, to be tried best first, when they are
+	 * ordered (or null if they aren't).
+	 */
+	final MovePicker picker;
+
+	/**
+	 * Records for undoing the moves made at each ply.
+	 */
+	final UndoStack undo;
+
+	/**
+	 * Where table probes put what they find.
+	 */
+	final TranspositionTable.Entry hashEntry = new TranspositionTable.Entry();
+
+	/**
+	 * Best move found at the root.
+	 */
+	long bestMove;
+
+	/**
+	 * Principal variation found by the current search, if the engine
+	 * keeps it (or null): pv[ply] holds the best line from the node at
+	 * ply, in pv[ply][ply] thru pv[ply][pvLength[ply] - 1].
+	 */
+	final long[][] pv;
+	final int[] pvLength;
+
+	/**
+	 * Principal variation of the last search (e.g. the last iteration of
+	 * an iterative deepening search), and whether the node being searched
+	 * is on it.
+	 */
+	final long[] previousPv;
+	int previousPvLength;
+	boolean followingPv;
+
+	private StopCondition stopCondition;
+	private boolean stopped;
+
+	// statistics for the last search
+	int searches;
+	int evals;
+	int hashProbes;
+	int hashHits;
+
+	/**
+	 * Constructs a context for searches to at most maxPly plies from the
+	 * root, with a picker if the moves are ordered, and room for the
+	 * principal variation if it is kept.
+	 */
+	SearchContext(int maxPly, boolean ordered, boolean keepPv) {
+		moves = new StagedMoves(maxPly + 1);
+		picker = ordered ? new MovePicker(maxPly + 1) : null;
+		undo = new UndoStack(maxPly + 1);
+		pv = keepPv ? new long[maxPly + 1][maxPly + 1] : null;
+		pvLength = keepPv ? new int[maxPly + 1] : null;
+		previousPv = keepPv ? new long[maxPly + 1] : null;
+	}
+
+	/**
+	 * Resets the statistics, and forgets the last principal variation and
+	 * any stop, for a new search.
+	 */
+	void reset() {
+		searches = 1;
+		evals = 0;
+		hashProbes = 0;
+		hashHits = 0;
+		previousPvLength = 0;
+		followingPv = false;
+		stopped = false;
+	}
+
+	/**
+	 * Stops the searches with this context when the given condition says
+	 * to (or never, if null).
+	 */
+	void setStopCondition(StopCondition stopCondition) {
+		this.stopCondition = stopCondition;
+	}
+
+	/**
+	 * Asks the stop condition whether to stop, unless the search has
+	 * stopped already, and returns true if it has.
+	 */
+	boolean pollStop() {
+		if (!stopped && stopCondition != null && stopCondition.shouldStop(this))
+			stopped = true;
+		return stopped;
+	}
+
+	/**
+	 * Returns true if the search was stopped before it finished, in which
+	 * case its scores and moves mean nothing.
+	 */
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * Makes the given move, followed by the best line after it, the best
+	 * line from the given ply.
+	 */
+	void updatePv(int ply, long move) {
+		pv[ply][ply] = move;
+		int length = pvLength[ply + 1];
+		System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, length - (ply + 1));
+		pvLength[ply] = length;
+	}
+
+	/**
+	 * Keeps the principal variation found from the root, for the next
+	 * search to try first.
+	 */
+	void savePv() {
+		previousPvLength = pvLength[0];
+		System.arraycopy(pv[0], 0, previousPv, 0, previousPvLength);
+	}
+
+	public int getSearches() {
+		return searches;
+	}
+
+	public int getEvals() {
+		return evals;
+	}
+
+	public int getHashProbes() {
+		return hashProbes;
+	}
+
+	public int getHashHits() {
+		return hashHits;
+	}
+}
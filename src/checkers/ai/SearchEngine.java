@@ -0,0 +1,426 @@
+package checkers.ai;
+
+import java.util.List;
+
+import checkers.model.GameState;
+import checkers.model.Move;
+import checkers.model.PackedMove;
+import checkers.model.PlayerId;
+
+/**
+ * Fixed-depth negamax search with alpha-beta pruning, on whole-number
+ * scores, with optional features that each of the negamax players turns
+ * on in its own combination:
+ * <ul>
+ * <li>extensions: a search that reaches its depth with a jump to make
+ *     carries on until there isn't one (see
+ *     {@link NegamaxExtensionPlayer});</li>
+ * <li>move ordering, either by a shallower search of each move (see
+ *     {@link NegamaxOrderingPlayer}) or by a {@link MoveHistory}, rather
+ *     than trying the moves in the order they are generated;</li>
+ * <li>principal variation search: each move after the first is searched
+ *     with a null window, only to show that it is no better, and searched
+ *     again with the full window if it is (see
+ *     {@link NegascoutOrderingPlayer});</li>
+ * <li>a {@link TranspositionTable}, whose results cut the search short, and
+ *     whose best moves are tried first;</li>
+ * <li>following the principal variation (the line of best play) of the
+ *     last search with the same context: its moves are tried first, and
+ *     aren't cut short by the table (see
+ *     {@link IterativeDeepeningPlayer}).</li>
+ * </ul>
+ * The search itself is the same whichever features are on, so each of
+ * them works with all the others.  The features are set before searching,
+ * and not changed afterwards.
+ * <p>
+ * Besides searching to its own depth with {@link #chooseMove}, an engine
+ * can be driven by a player that searches the root moves itself, with
+ * {@link #searchMove}, e.g. to a different depth each iteration, or on
+ * several threads.  A context's search can then be stopped part way (see
+ * {@link SearchContext.StopCondition}), after which its scores mean
+ * nothing, and are kept out of the table.
+ * <p>
+ * Searches may run on several threads at once, each with its own
+ * {@link SearchContext}, unless the moves are ordered by a MoveHistory,
+ * which isn't thread-safe.
+ */
+public class SearchEngine {
+	/**
+	 * Bounds on every score, including those of won and lost games (see
+	 * {@link Utils#utilityOf(GameState)}).
+	 */
+	public static final int INFINITY = 1 << 20;
+
+	/**
+	 * The most plies a search can be extended past its depth: each ply of
+	 * extension is a jump, and there are only 24 pieces to jump.
+	 */
+	private static final int MAX_EXTENSION = 24;
+
+	/**
+	 * How the moves from each node are ordered.
+	 */
+	public enum Ordering { GENERATED, SEARCH, HISTORY }
+
+	private final int searchDepth;
+
+	private boolean extensions;
+	private Ordering ordering = Ordering.GENERATED;
+	private int differential;
+	private MoveHistory history;
+	private boolean principalVariation;
+	private TranspositionTable table;
+	private boolean pvFollowing;
+
+	/**
+	 * Each thread's context, made when first needed.
+	 */
+	private final ThreadLocal<SearchContext> contexts = new ThreadLocal<SearchContext>() {
+		@Override
+		protected SearchContext initialValue() {
+			return newContext();
+		}
+	};
+
+	/**
+	 * Constructs an engine that searches to searchDepth, with none of the
+	 * optional features.
+	 */
+	public SearchEngine(int searchDepth) {
+		this.searchDepth = searchDepth;
+	}
+
+	public int getSearchDepth() {
+		return searchDepth;
+	}
+
+	/**
+	 * Turns on extending the search through jumps.
+	 */
+	public void setExtensions(boolean extensions) {
+		this.extensions = extensions;
+	}
+
+	/**
+	 * Orders the moves by searches differential plies shallower than the
+	 * depth left.
+	 */
+	public void setOrderingBySearch(int differential) {
+		this.ordering = Ordering.SEARCH;
+		this.differential = differential;
+	}
+
+	/**
+	 * Orders the moves by the given statistics, which are kept up to date
+	 * as the engine searches.
+	 */
+	public void setOrderingByHistory(MoveHistory history) {
+		if (searchDepth > MoveHistory.MAX_PLY)
+			throw new IllegalArgumentException("can't order moves by history at depth " + searchDepth);
+		this.ordering = Ordering.HISTORY;
+		this.history = history;
+	}
+
+	public Ordering getOrdering() {
+		return ordering;
+	}
+
+	public int getDifferential() {
+		return differential;
+	}
+
+	/**
+	 * Turns on principal variation search.
+	 */
+	public void setPrincipalVariation(boolean principalVariation) {
+		this.principalVariation = principalVariation;
+	}
+
+	/**
+	 * Keeps the results of searches in the given table (or not, if null),
+	 * and reuses them.
+	 */
+	public void setTable(TranspositionTable table) {
+		this.table = table;
+	}
+
+	/**
+	 * Turns on following the principal variation of the last search with
+	 * the same context.
+	 */
+	public void setPvFollowing(boolean pvFollowing) {
+		this.pvFollowing = pvFollowing;
+	}
+
+	/**
+	 * Returns the calling thread's context.
+	 */
+	public SearchContext context() {
+		return contexts.get();
+	}
+
+	/**
+	 * Returns a new context, for searches that aren't tied to a thread,
+	 * such as fork/join tasks that run nested on the same thread.
+	 */
+	public SearchContext newContext() {
+		return new SearchContext(searchDepth + (extensions ? MAX_EXTENSION : 0),
+				ordering != Ordering.GENERATED, pvFollowing);
+	}
+
+	/**
+	 * Searches the given state, with the given context, and returns the
+	 * best move.  The context then holds the statistics of the search.
+	 */
+	public Move chooseMove(GameState state, SearchContext context) {
+		context.reset();
+
+		if (state.gameIsOver()) throw new IllegalArgumentException("Can't make a decision; state is terminal.");
+
+		List<? extends Move> choices = state.possibleMoves();
+		if (choices.size() == 1) {
+			return choices.get(0);
+		}
+
+		newSearch();
+
+		// the root is expanded like any other node, except that its best
+		// move is what we're after, rather than its score
+		searchMoves(context, state, searchDepth, -INFINITY, INFINITY, 0, 0, PackedMove.NONE);
+		return PackedMove.toMove(context.bestMove);
+	}
+
+	/**
+	 * Gets the table and the move history (if any) ready for a search from
+	 * a new root.
+	 */
+	void newSearch() {
+		if (table != null)
+			table.newSearch();
+		if (history != null)
+			history.newSearch();
+	}
+
+	/**
+	 * Searches the given move from the given state, the root of a search
+	 * that the caller drives, to the given depth (counting the move) with
+	 * the given window, and returns its score for the player making it.
+	 * With the principal variation kept, a move that scores above alpha
+	 * starts the new one.
+	 * <p>
+	 * The caller resets the context and calls {@link #newSearch()} before
+	 * the first move, and should check whether the search was stopped
+	 * after each.
+	 */
+	int searchMove(SearchContext c, GameState state, long move, int depth, int alpha, int beta) {
+		state.makeMove(move, c.undo);
+		int util = -search(c, state, depth - 1, -beta, -alpha, 1);
+		state.undoMove(c.undo);
+
+		if (pvFollowing && util > alpha && !c.isStopped())
+			c.updatePv(0, move);
+		return util;
+	}
+
+	/**
+	 * Searches the given state, at the given ply of the context, to the
+	 * given depth with the given window, and returns its score for the
+	 * player to move.  This is the search below the root; callers that
+	 * search the nodes above it themselves can carry on with it.
+	 */
+	int search(SearchContext c, GameState state, int depth, int alpha, int beta, int ply) {
+		c.searches++;
+		if (c.pollStop())
+			return 0;
+
+		if (pvFollowing)
+			c.pvLength[ply] = ply;
+
+		// with extensions, a search doesn't stop with a jump to make
+		if (state.gameIsOver() || (depth <= 0 && !(extensions && state.hasAnyJump()))) {
+			c.evals++;
+			int util = Utils.utilityOf(state);
+			return (state.playerToMove() == PlayerId.WHITE) ? util : -util;
+		}
+
+		// a position that was already searched deep enough needn't be
+		// searched again; otherwise its best move is tried first
+		long key = 0;
+		long hashMove = PackedMove.NONE;
+		if (table != null) {
+			key = state.key();
+			c.hashProbes++;
+			if (table.probe(key, c.hashEntry)) {
+				c.hashHits++;
+				hashMove = c.hashEntry.move;
+				if (c.hashEntry.depth >= depth && !c.followingPv) {
+					int score = c.hashEntry.score;
+					int bound = c.hashEntry.bound;
+					if (bound == TranspositionTable.EXACT
+							|| (bound == TranspositionTable.LOWER && score >= beta)
+							|| (bound == TranspositionTable.UPPER && score <= alpha))
+						return score;
+				}
+			}
+		}
+
+		// on the principal variation, its move comes first
+		if (c.followingPv) {
+			if (ply < c.previousPvLength)
+				hashMove = c.previousPv[ply];
+			else
+				c.followingPv = false;
+		}
+
+		return searchMoves(c, state, depth, alpha, beta, ply, key, hashMove);
+	}
+
+	/**
+	 * Searches the moves from a node, and returns its score.  At the root
+	 * (ply 0), the best move is kept in the context; elsewhere, the result
+	 * goes in the table, unless the search was stopped.
+	 */
+	private int searchMoves(SearchContext c, GameState state, int depth, int alpha, int beta,
+			int ply, long key, long hashMove) {
+		startMoves(c, state, depth, alpha, beta, ply, hashMove);
+
+		long bestMove = PackedMove.NONE;
+		int b = beta;
+		for (long choice; (choice = nextMove(c, state, ply)) != PackedMove.NONE; ) {
+			if (history != null)
+				history.setMove(ply, choice);
+			state.makeMove(choice, c.undo);
+			int util = -search(c, state, depth - 1, -b, -alpha, ply + 1);
+			state.undoMove(c.undo);
+
+			// only the first move tried can follow the principal variation
+			c.followingPv = false;
+			if (c.isStopped())
+				return 0;
+
+			if (util > alpha) {
+				alpha = util;
+				bestMove = choice;
+				if (pvFollowing)
+					c.updatePv(ply, choice);
+			}
+
+			// this is sufficient for alpha-beta pruning
+			if (alpha >= beta)
+				return cutoff(c, depth, alpha, ply, key, bestMove);
+
+			if (principalVariation) {
+				// re-search if failed high
+				if (alpha >= b) {
+					state.makeMove(choice, c.undo);
+					alpha = -search(c, state, depth - 1, -beta, -alpha, ply + 1);
+					state.undoMove(c.undo);
+					if (c.isStopped())
+						return 0;
+					bestMove = choice;
+					if (pvFollowing)
+						c.updatePv(ply, choice);
+					if (alpha >= beta)
+						return cutoff(c, depth, alpha, ply, key, bestMove);
+				}
+
+				b = alpha + 1; // set new window
+			}
+		}
+
+		if (ply == 0)
+			c.bestMove = bestMove;
+		else if (table != null) {
+			if (bestMove != PackedMove.NONE)
+				table.store(key, depth, TranspositionTable.EXACT, alpha, bestMove);
+			else
+				table.store(key, depth, TranspositionTable.UPPER, alpha, hashMove);
+		}
+		return alpha;
+	}
+
+	/**
+	 * Records a cutoff by the given move, and returns the node's score.
+	 */
+	private int cutoff(SearchContext c, int depth, int alpha, int ply, long key, long bestMove) {
+		if (ply == 0) {
+			c.bestMove = bestMove;
+			return alpha;
+		}
+		if (history != null)
+			history.cutoff(ply, depth);
+		if (table != null)
+			table.store(key, depth, TranspositionTable.LOWER, alpha, bestMove);
+		return alpha;
+	}
+
+	/**
+	 * Gets the moves at the given ply ready to be tried.
+	 */
+	private void startMoves(SearchContext c, GameState state, int depth, int alpha, int beta,
+			int ply, long hashMove) {
+		switch (ordering) {
+		case GENERATED:
+			// moves are only generated as they are needed, so a cutoff
+			// also stops the move generation
+			c.moves.start(ply, hashMove);
+			break;
+		case SEARCH:
+			// the ordering searches have always used the children's window
+			orderBySearch(c, state, ply, depth - differential, -beta, -alpha);
+			break;
+		case HISTORY:
+			c.picker.generate(state, ply);
+			history.score(c.picker, ply, hashMove);
+			break;
+		}
+	}
+
+	private long nextMove(SearchContext c, GameState state, int ply) {
+		return (ordering == Ordering.GENERATED) ? c.moves.next(state, ply) : c.picker.next(ply);
+	}
+
+	/**
+	 * Fills in the picker's list for the given ply with the moves from the
+	 * given state, scored by searches interiorSearchDepth plies deep.
+	 */
+	private void orderBySearch(SearchContext c, GameState state, int ply, int interiorSearchDepth,
+			int alpha, int beta) {
+		c.searches++;
+
+		int count = c.picker.generate(state, ply);
+		int b = beta;
+		for (int i = 0; i < count; ++i) {
+			long choice = c.picker.get(ply, i);
+
+			// This is our "pruning." If alpha >= beta, we use alpha as the util value.
+			// This may save us some shallow searches, and keeps the best node at the
+			// front of the list.
+			int util;
+			if (alpha >= beta) {
+				util = alpha;
+			} else {
+				state.makeMove(choice, c.undo);
+				util = -search(c, state, interiorSearchDepth - 1, -b, -alpha, ply + 1);
+				state.undoMove(c.undo);
+			}
+
+			c.picker.setScore(ply, i, util);
+
+			if (util > alpha) {
+				alpha = util;
+			}
+
+			if (principalVariation) {
+				// re-search if failed high
+				if (alpha >= b) {
+					state.makeMove(choice, c.undo);
+					alpha = -search(c, state, interiorSearchDepth - 1, -beta, -alpha, ply + 1);
+					state.undoMove(c.undo);
+				}
+
+				b = alpha + 1; // set new window
+			}
+		}
+	}
+}
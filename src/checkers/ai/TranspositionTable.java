@@ -0,0 +1,380 @@
+package checkers.ai;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import checkers.model.Zobrist;
+
+/**
+ * Fixed-size transposition table, remembering the results of searches
+ * from positions by their Zobrist key (see
+ * {@link checkers.model.GameState#key()}), so that a position reached
+ * again by a different order of moves needn't be searched again.
+ * <p>
+ * Each entry holds:
+ * <ul>
+ * <li>the upper 32 bits of the key, to verify that an entry is for the
+ *     position probed for (the lower bits pick the bucket);
+ * <li>the depth the position was searched to;
+ * <li>whether the score is exact, or only a lower bound (the search
+ *     failed high) or an upper bound (it failed low);
+ * <li>the score;
+ * <li>the best move found (in {@link checkers.model.PackedMove} form), or
+ *     {@link checkers.model.PackedMove#NONE}; and
+ * <li>the generation (see {@link #newSearch()}) it was stored in.
+ * </ul>
+ * All but the move are packed into one 64-bit data word, so an entry is
+ * two words, and four entries make up a 64-byte bucket, which is aligned
+ * to a cache line, so that a probe only ever touches one line of memory.
+ * The first three entries of a bucket are depth-preferred: a new result
+ * replaces the stalest or shallowest of them, if it is from an earlier
+ * generation or the new result is at least as deep.  Otherwise it goes in
+ * the fourth, which is always replaced, so that recent shallow results
+ * still get kept.
+ * <p>
+ * The table is kept in direct buffers, outside of the Java heap, so that
+ * even tables of many gigabytes don't slow down garbage collection (the
+ * JVM may need a larger -XX:MaxDirectMemorySize for them, though).
+ * <p>
+ * Several search threads can share a table without locking.  Each entry
+ * is stored as (data ^ move, move), so if two threads write the same
+ * entry at once and it ends up with half of each write, the data word
+ * read back from it almost certainly won't have the right key bits, and
+ * the entry is just missed.
+ * <p>
+ * A table can be saved to a file with {@link #save(String)}, and loaded
+ * back in a later run with {@link #load(String)}, to start off with what
+ * earlier searches found.  A loaded table is memory-mapped from the file,
+ * so loading it is quick however big it is: each part of it is only read
+ * in when a search first touches it.
+ */
+public class TranspositionTable {
+	/**
+	 * Bound flags for stored scores.  An entry with no flag is empty.
+	 */
+	public static final int LOWER = 1;
+	public static final int UPPER = 2;
+	public static final int EXACT = 3;
+
+	/**
+	 * The results of a successful probe; see
+	 * {@link TranspositionTable#probe(long, Entry)}.
+	 */
+	public static class Entry {
+		public int depth;
+		public int bound;
+		public int score;
+		public long move;
+	}
+
+	public static final int ENTRY_BYTES = 16;
+	public static final int BUCKET_BYTES = 64;
+	private static final int BUCKET_ENTRIES = BUCKET_BYTES / ENTRY_BYTES;
+
+	/**
+	 * Each buffer holds 2^CHUNK_SHIFT buckets (1 GB), since a single
+	 * buffer can't hold more than 2 GB.
+	 */
+	private static final int CHUNK_SHIFT = 24;
+	private static final int CHUNK_MASK = (1 << CHUNK_SHIFT) - 1;
+
+	// layout of the data word, from bit 0 up
+	private static final int SCORE_BITS       = 16;
+	private static final int DEPTH_SHIFT      = 16;
+	private static final int DEPTH_MASK       = 0xFF;
+	private static final int BOUND_SHIFT      = 24;
+	private static final int BOUND_MASK       = 0x3;
+	private static final int GENERATION_SHIFT = 26;
+	private static final int GENERATION_MASK  = 0x3F;
+	private static final int CHECK_SHIFT      = 32;
+
+	/**
+	 * Saved tables start with a header of this many bytes (keeping the
+	 * buckets after it aligned), holding FILE_MAGIC, FILE_VERSION,
+	 * {@link Zobrist#VERSION}, the byte order of the entries, the number of
+	 * buckets, and the generation.
+	 */
+	private static final int HEADER_BYTES = BUCKET_BYTES;
+	private static final int FILE_MAGIC = 0x434B5454; // "CKTT"
+	private static final int FILE_VERSION = 1;
+
+	private final ByteBuffer[] chunks;
+
+	/**
+	 * Number of bytes of buckets in each chunk.
+	 */
+	private final int chunkBytes;
+
+	/**
+	 * Mask giving the bucket of a key, from its low bits.
+	 */
+	private final int bucketMask;
+
+	private volatile int generation = 0;
+
+	/**
+	 * Constructs a table that takes up at most the given number of
+	 * megabytes (and at least one bucket).
+	 */
+	public TranspositionTable(int megabytes) {
+		if (megabytes < 0)
+			throw new IllegalArgumentException("negative table size " + megabytes);
+
+		long maxBuckets = (long) megabytes * 1024 * 1024 / BUCKET_BYTES;
+		int buckets = 1;
+		while (buckets * 2L <= maxBuckets && buckets < (1 << 30))
+			buckets *= 2;
+		bucketMask = buckets - 1;
+
+		int chunkBuckets = Math.min(buckets, 1 << CHUNK_SHIFT);
+		chunkBytes = chunkBuckets * BUCKET_BYTES;
+		chunks = new ByteBuffer[buckets / chunkBuckets];
+		for (int i = 0; i < chunks.length; ++i) {
+			// allocate a bucket more, so the buckets can start on a
+			// cache line boundary
+			ByteBuffer buffer = ByteBuffer.allocateDirect(chunkBytes + BUCKET_BYTES);
+			buffer = buffer.alignedSlice(BUCKET_BYTES);
+			buffer.limit(chunkBytes);
+			chunks[i] = buffer.slice().order(ByteOrder.nativeOrder());
+		}
+	}
+
+	private TranspositionTable(ByteBuffer[] chunks, int buckets, int generation) {
+		this.chunks = chunks;
+		this.chunkBytes = chunks[0].capacity();
+		this.bucketMask = buckets - 1;
+		this.generation = generation;
+	}
+
+	/**
+	 * Loads a table saved with {@link #save(String)}.  The file is mapped
+	 * copy-on-write, so it is only read as the table is used, and changes
+	 * to the table are not written back to it (save it again for that).
+	 *
+	 * @throws IOException if the file can't be read, or isn't a saved
+	 *         table that can be used by this version of the program
+	 */
+	public static TranspositionTable load(String filename) throws IOException {
+		// (copy-on-write mapping needs a channel open for writing, though
+		// nothing is ever written)
+		FileChannel channel = FileChannel.open(new File(filename).toPath(),
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			while (header.hasRemaining() && channel.read(header) >= 0)
+				;
+			header.flip();
+
+			if (header.remaining() < HEADER_BYTES || header.getInt() != FILE_MAGIC)
+				throw new IOException(filename + " is not a saved transposition table");
+			int fileVersion = header.getInt();
+			if (fileVersion != FILE_VERSION)
+				throw new IOException(filename + " has file format version "
+						+ fileVersion + ", not " + FILE_VERSION);
+			int keyVersion = header.getInt();
+			if (keyVersion != Zobrist.VERSION)
+				throw new IOException(filename + " has position key version "
+						+ keyVersion + ", not " + Zobrist.VERSION);
+			if (header.getInt() != byteOrderCode())
+				throw new IOException(filename + " was saved with a different byte order");
+			long buckets = header.getLong();
+			int generation = header.getInt();
+			if (buckets <= 0 || buckets > (1 << 30) || Long.bitCount(buckets) != 1
+					|| channel.size() != HEADER_BYTES + buckets * BUCKET_BYTES
+					|| generation < 0 || generation > GENERATION_MASK)
+				throw new IOException(filename + " is corrupt");
+
+			int chunkBuckets = (int) Math.min(buckets, 1 << CHUNK_SHIFT);
+			long chunkBytes = (long) chunkBuckets * BUCKET_BYTES;
+			ByteBuffer[] chunks = new ByteBuffer[(int) (buckets / chunkBuckets)];
+			for (int i = 0; i < chunks.length; ++i)
+				chunks[i] = channel.map(FileChannel.MapMode.PRIVATE,
+						HEADER_BYTES + i * chunkBytes, chunkBytes)
+						.order(ByteOrder.nativeOrder());
+
+			return new TranspositionTable(chunks, (int) buckets, generation);
+		} finally {
+			// the mappings stay valid after the channel is closed
+			channel.close();
+		}
+	}
+
+	/**
+	 * Saves this table to the given file, for {@link #load(String)}.  Must
+	 * not be called while other threads are using it.  The file is written
+	 * under a temporary name first, and then renamed, so an existing file
+	 * (even the one this table was loaded from) is only replaced once the
+	 * new one is complete.
+	 */
+	public void save(String filename) throws IOException {
+		File file = new File(filename).getAbsoluteFile();
+		File temp = File.createTempFile(file.getName(), ".tmp", file.getParentFile());
+		FileChannel channel = FileChannel.open(temp.toPath(),
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+			header.putInt(FILE_MAGIC);
+			header.putInt(FILE_VERSION);
+			header.putInt(Zobrist.VERSION);
+			header.putInt(byteOrderCode());
+			header.putLong(bucketMask + 1L);
+			header.putInt(generation);
+			header.clear();
+			write(channel, header);
+
+			for (ByteBuffer chunk : chunks)
+				write(channel, chunk.duplicate().clear());
+		} catch (IOException e) {
+			channel.close();
+			temp.delete();
+			throw e;
+		}
+		channel.close();
+
+		Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+		while (buffer.hasRemaining())
+			channel.write(buffer);
+	}
+
+	private static int byteOrderCode() {
+		return (ByteOrder.nativeOrder() == ByteOrder.BIG_ENDIAN) ? 0 : 1;
+	}
+
+	/**
+	 * Returns the number of entries.
+	 */
+	public long size() {
+		return (bucketMask + 1L) * BUCKET_ENTRIES;
+	}
+
+	/**
+	 * Empties the table.  Must not be called while other threads are using
+	 * it.
+	 */
+	public void clear() {
+		for (ByteBuffer chunk : chunks)
+			for (int i = 0; i < chunkBytes; i += 8)
+				chunk.putLong(i, 0);
+		generation = 0;
+	}
+
+	/**
+	 * Starts a new generation; call at the start of each search, so that
+	 * entries from earlier searches give way to new ones.
+	 */
+	public void newSearch() {
+		generation = (generation + 1) & GENERATION_MASK;
+	}
+
+	/**
+	 * Looks up the position with the given key, and if it is in the table,
+	 * fills in the given entry with what was stored for it, and returns
+	 * true.
+	 */
+	public boolean probe(long key, Entry entry) {
+		ByteBuffer chunk = chunkOf(key);
+		int offset = offsetOf(key);
+		int check = (int) (key >>> CHECK_SHIFT);
+
+		for (int i = 0; i < BUCKET_ENTRIES; ++i, offset += ENTRY_BYTES) {
+			long move = chunk.getLong(offset + 8);
+			long data = chunk.getLong(offset) ^ move;
+			if (bound(data) != 0 && (int) (data >>> CHECK_SHIFT) == check) {
+				entry.depth = depth(data);
+				entry.bound = bound(data);
+				entry.score = (short) data;
+				entry.move = move;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Stores the result of a search from the position with the given key.
+	 *
+	 * @param depth how deep the position was searched
+	 * @param bound {@link #LOWER}, {@link #UPPER} or {@link #EXACT}
+	 * @param score the score, which is clamped to the range of a short
+	 * @param move the best move found, or PackedMove.NONE
+	 */
+	public void store(long key, int depth, int bound, int score, long move) {
+		assert bound >= LOWER && bound <= EXACT;
+		int generation = this.generation;
+		ByteBuffer chunk = chunkOf(key);
+		int first = offsetOf(key);
+		int check = (int) (key >>> CHECK_SHIFT);
+
+		// use the entry already holding this position, if there is one
+		int victim = -1;
+		for (int i = 0; i < BUCKET_ENTRIES && victim < 0; ++i) {
+			int offset = first + i * ENTRY_BYTES;
+			long data = chunk.getLong(offset) ^ chunk.getLong(offset + 8);
+			if (bound(data) != 0 && (int) (data >>> CHECK_SHIFT) == check)
+				victim = offset;
+		}
+
+		// else the least valuable depth-preferred entry, if the new result
+		// is worth more, or else the always-replace entry
+		if (victim < 0) {
+			int victimWorth = Integer.MAX_VALUE;
+			for (int i = 0; i < BUCKET_ENTRIES - 1; ++i) {
+				int offset = first + i * ENTRY_BYTES;
+				long data = chunk.getLong(offset) ^ chunk.getLong(offset + 8);
+
+				// empty entries are worth nothing, and stale ones are worth
+				// less than any current ones
+				int worth = (bound(data) == 0) ? -1 : depth(data)
+						+ ((generation(data) == generation) ? DEPTH_MASK + 1 : 0);
+				if (worth < victimWorth) {
+					victim = offset;
+					victimWorth = worth;
+				}
+			}
+			if (victimWorth > DEPTH_MASK && depth < victimWorth - (DEPTH_MASK + 1))
+				victim = first + (BUCKET_ENTRIES - 1) * ENTRY_BYTES;
+		}
+
+		// scores too big to hold (e.g. infinite bounds) are clamped, which
+		// still leaves them valid bounds
+		long clamped = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, score));
+
+		long data = ((long) check << CHECK_SHIFT)
+				| ((long) generation << GENERATION_SHIFT)
+				| ((long) bound << BOUND_SHIFT)
+				| ((long) Math.min(Math.max(depth, 0), DEPTH_MASK) << DEPTH_SHIFT)
+				| (clamped & ((1L << SCORE_BITS) - 1));
+		chunk.putLong(victim, data ^ move);
+		chunk.putLong(victim + 8, move);
+	}
+
+	private static int depth(long data) {
+		return (int) (data >>> DEPTH_SHIFT) & DEPTH_MASK;
+	}
+
+	private static int bound(long data) {
+		return (int) (data >>> BOUND_SHIFT) & BOUND_MASK;
+	}
+
+	private static int generation(long data) {
+		return (int) (data >>> GENERATION_SHIFT) & GENERATION_MASK;
+	}
+
+	private ByteBuffer chunkOf(long key) {
+		return chunks[((int) key & bucketMask) >>> CHUNK_SHIFT];
+	}
+
+	private int offsetOf(long key) {
+		return ((int) key & bucketMask & CHUNK_MASK) * BUCKET_BYTES;
+	}
+}
@@ -3,7 +3,6 @@ package checkers.ai;
 import checkers.model.Board;
 import checkers.model.GameState;
 import checkers.model.PlayerId;
-import checkers.model.Board.PositionState;
 
 /**
  * AI utilities package, including evaluation function.
@@ -12,7 +11,7 @@ import checkers.model.Board.PositionState;
  */
 public class Utils {
 
-	public static double utilityOf(GameState state) {
+	public static int utilityOf(GameState state) {
 		if (state.gameIsOver()) {
 			if (state.playerToMove() == PlayerId.WHITE) { // white lost!
 				return -10000;
@@ -23,18 +22,8 @@ public class Utils {
 
 		Board gameBoard = state.getBoard();
 
-		Integer white = 0;
-		Integer black = 0;
-		for (int pos = 1; pos <= 32; pos++) {
-			PositionState ps = gameBoard.stateAt(pos);
-			switch (ps) {
-				case EMPTY: break;
-				case WHITE_MAN: white += 100; break;
-				case WHITE_KING: white += 130; break;
-				case BLACK_MAN: black += 100; break;
-				case BLACK_KING: black += 130; break;
-			}
-		}
+		int white = 100 * gameBoard.whiteMen() + 130 * gameBoard.whiteKings();
+		int black = 100 * gameBoard.blackMen() + 130 * gameBoard.blackKings();
 
 		int util = white - black;
 		util += (250 * (white - black)) / (white + black);
@@ -0,0 +1,376 @@
+package checkers.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+import checkers.model.GameState;
+import checkers.model.Move;
+import checkers.model.PackedMove;
+
+/**
+ * Multi-threaded negamax player, using the "Young Brothers Wait" concept:
+ * at each node, the first move (the eldest brother) is searched on its
+ * own, and only then are the rest of the moves (the young brothers)
+ * searched in parallel, as fork/join tasks.  By then the eldest brother
+ * has usually either caused a cutoff, so that the others needn't be
+ * searched at all, or set a good alpha for them to search with.
+ * <p>
+ * The young brothers of a node share its alpha, which is raised as each
+ * of them finishes, so that those started later search with the best
+ * bound found so far.  When one of them causes a cutoff, the node is
+ * aborted: the rest return as soon as they notice, as do any tasks split
+ * off below them.  Each task works on its own copy of the GameState, with
+ * its own {@link SearchContext}.  Nodes too shallow to split are searched
+ * by a {@link SearchEngine}, which stops when the split point above is
+ * aborted.
+ * <p>
+ * Unlike {@link LazySmpPlayer}, the result doesn't depend on the timing of
+ * the threads: it searches the same tree as {@link NegamaxPlayer} (without
+ * a table), less whatever was pruned, and chooses the same move.  Where
+ * moves tie, the first one generated is the best, as in a serial search.
+ */
+public class YoungBrothersWaitPlayer extends EnginePlayer implements Cloneable {
+	/**
+	 * Nodes with less depth than this left are searched serially, as their
+	 * subtrees are too small to be worth a task each.
+	 */
+	private static final int MIN_SPLIT_DEPTH = 3;
+
+	private int threads;
+
+	/**
+	 * Runs the tasks; made when first needed.
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Totals of the tasks' statistics for the current search.
+	 */
+	private AtomicLong taskSearches = new AtomicLong();
+	private AtomicLong taskEvals = new AtomicLong();
+
+	/**
+	 * Wall-clock time the last search took.
+	 */
+	private long elapsedNanos;
+
+	/**
+	 * Constructs a Player that searches to searchDepth with the given
+	 * number of threads.
+	 */
+	public YoungBrothersWaitPlayer(int searchDepth, int threads) {
+		super(new SearchEngine(searchDepth));
+		if (threads < 1)
+			throw new IllegalArgumentException("need at least one thread, not " + threads);
+
+		this.threads = threads;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Returns the wall-clock time the last search took, in nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	/**
+	 * Returns the number of nodes searched per second in the last search,
+	 * per thread.  If adding threads helps, this stays about the same as
+	 * with one thread; if they mostly wait for each other, it drops.
+	 */
+	public double getNodesPerSecondPerThread() {
+		if (elapsedNanos == 0)
+			return 0;
+		return searches * 1e9 / elapsedNanos / threads;
+	}
+
+	/**
+	 * Returns the search overhead of the last search: the fraction of its
+	 * nodes that a serial search (one that searched serialSearches nodes
+	 * for the same move) didn't need, as moves split off in parallel are
+	 * searched with a worse alpha than they would have been serially, or
+	 * before a cutoff that would have pruned them.
+	 */
+	public double getSearchOverhead(long serialSearches) {
+		if (serialSearches <= 0)
+			throw new IllegalArgumentException("no serial searches to compare with");
+		return (double) searches / serialSearches - 1;
+	}
+
+	@Override
+	public Move chooseMove(GameState state) {
+		long start = System.nanoTime();
+		searches = 1;
+		evals = 0;
+		elapsedNanos = 0;
+
+		if (state.gameIsOver()) throw new IllegalArgumentException("Can't make a decision; state is terminal.");
+
+		List<? extends Move> choices = state.possibleMoves();
+		if (choices.size() == 1) {
+			return choices.get(0);
+		}
+
+		if (pool == null)
+			pool = new ForkJoinPool(threads);
+
+		taskSearches.set(0);
+		taskEvals.set(0);
+		int best = pool.invoke(new RootTask(new GameState(state), choices));
+		searches += (int) taskSearches.get();
+		evals += (int) taskEvals.get();
+		elapsedNanos = System.nanoTime() - start;
+
+		return choices.get(best);
+	}
+
+	/**
+	 * Stops the worker threads for good.
+	 */
+	public void shutdown() {
+		if (pool != null)
+			pool.shutdown();
+		pool = null;
+	}
+
+	/**
+	 * A node whose young brothers are being searched in parallel, which
+	 * they report their results to.  The searches below it stop when it
+	 * is aborted.
+	 */
+	private static class SplitPoint implements SearchContext.StopCondition {
+		/**
+		 * The split point this one's node is below, or null if none.
+		 */
+		private final SplitPoint parent;
+
+		private final int beta;
+		private int alpha;
+
+		/**
+		 * Index (in the order the moves were generated) of the first move
+		 * found with the score alpha, or -1 if none has beaten the alpha
+		 * the node was searched with.
+		 */
+		private int bestIndex;
+
+		/**
+		 * Set on a cutoff, when the rest of the moves needn't be searched.
+		 */
+		private volatile boolean aborted;
+
+		SplitPoint(SplitPoint parent, int alpha, int beta, int bestIndex) {
+			this.parent = parent;
+			this.alpha = alpha;
+			this.beta = beta;
+			this.bestIndex = bestIndex;
+		}
+
+		/**
+		 * Returns true if this split point, or one it is below, has been
+		 * aborted.
+		 */
+		boolean isAborted() {
+			for (SplitPoint sp = this; sp != null; sp = sp.parent)
+				if (sp.aborted)
+					return true;
+			return false;
+		}
+
+		public boolean shouldStop(SearchContext context) {
+			return isAborted();
+		}
+
+		/**
+		 * Returns the alpha to search the move with the given index with.
+		 * If a later move set the current alpha, it is lowered by one, so
+		 * that this move's score is found if it ties, as the tie goes to
+		 * the first move.
+		 */
+		synchronized int alphaFor(int index) {
+			return (bestIndex > index) ? alpha - 1 : alpha;
+		}
+
+		synchronized int getAlpha() {
+			return alpha;
+		}
+
+		synchronized int getBestIndex() {
+			return bestIndex;
+		}
+
+		/**
+		 * Reports the score of the move with the given index, which was
+		 * searched with the given alpha, and aborts this split point if it
+		 * causes a cutoff.
+		 */
+		synchronized void report(int index, int util, int alphaUsed) {
+			// failing low only shows that the score is at most alphaUsed
+			if (util <= alphaUsed)
+				return;
+
+			if (util > alpha || (util == alpha && index < bestIndex)) {
+				alpha = util;
+				bestIndex = index;
+			}
+			if (alpha >= beta)
+				aborted = true;
+		}
+	}
+
+	/**
+	 * Searches the moves at the root, and returns the index of the best.
+	 */
+	private class RootTask extends RecursiveTask<Integer> {
+		private static final long serialVersionUID = 1L;
+
+		private final GameState state;
+		private final List<? extends Move> choices;
+
+		RootTask(GameState state, List<? extends Move> choices) {
+			this.state = state;
+			this.choices = choices;
+		}
+
+		@Override
+		protected Integer compute() {
+			int searchDepth = engine.getSearchDepth();
+			int alpha = -SearchEngine.INFINITY;
+			int beta = SearchEngine.INFINITY;
+
+			// the eldest brother
+			SearchContext context = engine.newContext();
+			state.makeMoveUnchecked(choices.get(0), context.undo);
+			int util = -search(context, state, searchDepth - 1, -beta, -alpha, 1, null);
+			state.undoMove(context.undo);
+			finish(context);
+
+			// and then the young brothers
+			SplitPoint sp = new SplitPoint(null, util, beta, 0);
+			List<BrotherTask> tasks = new ArrayList<BrotherTask>();
+			for (int i = 1; i < choices.size(); ++i) {
+				GameState child = new GameState(state);
+				child.makeMove(PackedMove.fromMove(choices.get(i)));
+				tasks.add(new BrotherTask(sp, i, child, searchDepth - 1));
+			}
+			invokeAll(tasks);
+			return sp.getBestIndex();
+		}
+	}
+
+	/**
+	 * Searches one young brother, and reports its score to the split point.
+	 */
+	private class BrotherTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final SplitPoint sp;
+		private final int index;
+		private final GameState state;
+		private final int depth;
+
+		BrotherTask(SplitPoint sp, int index, GameState state, int depth) {
+			this.sp = sp;
+			this.index = index;
+			this.state = state;
+			this.depth = depth;
+		}
+
+		@Override
+		protected void compute() {
+			// an older brother may have caused a cutoff already
+			if (sp.isAborted())
+				return;
+
+			// tasks can run nested on the same thread (a thread waiting for
+			// its young brothers helps search them), so each task has its
+			// own context, instead of each thread
+			SearchContext context = engine.newContext();
+			context.setStopCondition(sp);
+			int alpha = sp.alphaFor(index);
+			int util = -search(context, state, depth, -sp.beta, -alpha, 1, sp);
+			finish(context);
+			if (!context.isStopped())
+				sp.report(index, util, alpha);
+		}
+	}
+
+	/**
+	 * Adds a task's statistics to the search's.
+	 */
+	private void finish(SearchContext context) {
+		taskSearches.addAndGet(context.getSearches());
+		taskEvals.addAndGet(context.getEvals());
+	}
+
+	/**
+	 * Searches the given state, at the given ply of the given context,
+	 * below the given split point (if not null); if the search is stopped
+	 * because that is aborted, the score returned means nothing.
+	 */
+	private int search(SearchContext c, GameState state, int depth, int alpha, int beta, int ply,
+			SplitPoint within) {
+		if (depth < MIN_SPLIT_DEPTH || state.gameIsOver())
+			return engine.search(c, state, depth, alpha, beta, ply);
+
+		c.searches++;
+		if (c.pollStop())
+			return 0;
+
+		// the eldest brother
+		c.moves.start(ply, PackedMove.NONE);
+		long first = c.moves.next(state, ply);
+		state.makeMove(first, c.undo);
+		int util = -search(c, state, depth - 1, -beta, -alpha, ply + 1, within);
+		state.undoMove(c.undo);
+		if (c.isStopped())
+			return 0;
+
+		int bestIndex = -1;
+		if (util > alpha) {
+			alpha = util;
+			bestIndex = 0;
+		}
+		if (alpha >= beta)
+			return alpha;
+
+		// and then the young brothers, in parallel
+		SplitPoint sp = new SplitPoint(within, alpha, beta, bestIndex);
+		List<BrotherTask> tasks = new ArrayList<BrotherTask>();
+		int index = 1;
+		for (long choice; (choice = c.moves.next(state, ply)) != PackedMove.NONE; ) {
+			GameState child = new GameState(state);
+			child.makeMove(choice);
+			tasks.add(new BrotherTask(sp, index++, child, depth - 1));
+		}
+		ForkJoinTask.invokeAll(tasks);
+		if (c.pollStop())
+			return 0;
+		return sp.getAlpha();
+	}
+
+	@Override
+	public Object clone() throws CloneNotSupportedException {
+		YoungBrothersWaitPlayer clone = (YoungBrothersWaitPlayer) super.clone();
+		clone.elapsedNanos = 0;
+		clone.pool = null;
+		clone.taskSearches = new AtomicLong();
+		clone.taskEvals = new AtomicLong();
+		return clone;
+	}
+
+	@Override
+	public String toString() {
+		return "Young Brothers Wait player with depth " + engine.getSearchDepth() + ", " + threads + " threads";
+	}
+
+}
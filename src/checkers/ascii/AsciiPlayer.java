@@ -49,7 +49,7 @@ public class AsciiPlayer extends Player {
 				Move move = state.generateMove(positionSequence);
 
 				// make sure the move matches a possible move
-				if (possibleMoves.contains(move))
+				if (state.isPossibleMove(move))
 					return move;
 
 			} catch (Exception e) { } // if exception, just repeat loop
@@ -0,0 +1,43 @@
+package checkers.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import checkers.model.Board;
+import checkers.model.GameState;
+import checkers.model.PlayerId;
+
+/**
+ * Compact binary input and output of game states, for files with large
+ * numbers of them: each state takes RECORD_BYTES bytes, the black, white
+ * and king bitboards (see {@link Board}) as big-endian ints, followed by
+ * 0 if black is to move or 1 if white is.
+ */
+public class BinaryPositionIO {
+	public static final int RECORD_BYTES = 4 + 4 + 4 + 1;
+
+	public static void writePosition(DataOutput out, GameState state) throws IOException {
+		if (state.isJumping())
+			throw new IllegalArgumentException("can't output position mid-jump");
+
+		Board board = state.getBoard();
+		out.writeInt(board.blackPieces());
+		out.writeInt(board.whitePieces());
+		out.writeInt(board.kings());
+		out.writeByte(state.playerToMove() == PlayerId.BLACK ? 0 : 1);
+	}
+
+	public static GameState readPosition(DataInput in) throws IOException {
+		int blackPieces = in.readInt();
+		int whitePieces = in.readInt();
+		int kings = in.readInt();
+		PlayerId playerToMove = (in.readByte() == 0) ? PlayerId.BLACK : PlayerId.WHITE;
+
+		if ((blackPieces & whitePieces) != 0
+				|| (kings & ~(blackPieces | whitePieces)) != 0)
+			throw new IOException("corrupt position record");
+
+		return new GameState(playerToMove, 0, new Board(blackPieces, whitePieces, kings));
+	}
+}
@@ -1,7 +1,6 @@
 package checkers.model;
 
 import java.util.ArrayList;
-import static java.lang.System.arraycopy;
 
 /**
  * Represents the checkers board, and where all the pieces are, at a
@@ -26,21 +25,46 @@ import static java.lang.System.arraycopy;
  *        +----------------+
  *              DOWN (white black pieces start)
  * </code>
+ * <p>
+ * Internally, the board is stored as three 32-bit masks (bitboards), one
+ * bit per position: bit <code>pos - 1</code> is set in
+ * <code>blackPieces</code> or <code>whitePieces</code> if that player has
+ * a piece there, and in <code>kings</code> if that piece is a king.
  *
  * @author Kurt Glastetter
  */
 public class Board implements Cloneable {
-	private PositionState[] positionStates;
+	/**
+	 * Masks of the positions in each player's king row.
+	 */
+	static final int BLACKS_KING_ROW = 0xF0000000;
+	static final int WHITES_KING_ROW = 0x0000000F;
 
-	@Override
-	public Object clone() {
-		Board clone = new Board();
-		PositionState[] positionStatesClone = new PositionState[positionStates.length];
+	private int blackPieces;
+	private int whitePieces;
+	private int kings;
 
-		arraycopy(positionStates, 0, positionStatesClone, 0, 32);
+	/**
+	 * Zobrist key of the pieces on the board (see {@link Zobrist}), kept
+	 * up to date by every method that changes the bitboards.
+	 */
+	private long key;
+
+	/**
+	 * Each thread's move buffer, used by the methods that count or list
+	 * moves without being given a buffer, so that they don't change the
+	 * Board, and can be called on a shared Board from several threads.
+	 */
+	private static final ThreadLocal<MoveBuffer> SCRATCH = new ThreadLocal<MoveBuffer>() {
+		@Override
+		protected MoveBuffer initialValue() {
+			return new MoveBuffer(1);
+		}
+	};
 
-		clone.positionStates = positionStatesClone;
-		return clone;
+	@Override
+	public Object clone() {
+		return new Board(this);
 	}
 
 	/**
@@ -49,13 +73,50 @@ public class Board implements Cloneable {
 	 * the board given in the Board description above.
 	 */
 	static enum Direction {
-		UP_LEFT    { public boolean isUp() { return true; } },
-		UP_RIGHT   { public boolean isUp() { return true; } },
-		DOWN_LEFT  { public boolean isUp() { return false; } },
-		DOWN_RIGHT { public boolean isUp() { return false; } };
+		UP_LEFT {
+			public boolean isUp() { return true; }
+			Direction opposite() { return DOWN_RIGHT; }
+			int step(int squares) {
+				return ((squares & 0x0F0F0F0F) >>> 4) | ((squares & 0xE0E0E0E0) >>> 5);
+			}
+		},
+		UP_RIGHT {
+			public boolean isUp() { return true; }
+			Direction opposite() { return DOWN_LEFT; }
+			int step(int squares) {
+				return ((squares & 0x07070707) >>> 3) | ((squares & 0xF0F0F0F0) >>> 4);
+			}
+		},
+		DOWN_LEFT {
+			public boolean isUp() { return false; }
+			Direction opposite() { return UP_RIGHT; }
+			int step(int squares) {
+				return ((squares & 0x0F0F0F0F) << 4) | ((squares & 0xE0E0E0E0) << 3);
+			}
+		},
+		DOWN_RIGHT {
+			public boolean isUp() { return false; }
+			Direction opposite() { return UP_LEFT; }
+			int step(int squares) {
+				return ((squares & 0x07070707) << 5) | ((squares & 0xF0F0F0F0) << 4);
+			}
+		};
 
 		public abstract boolean isUp();
 		public boolean isDown() { return !isUp(); }
+		abstract Direction opposite();
+
+		/**
+		 * All the directions; use instead of values(), which allocates a
+		 * new array on every call.
+		 */
+		static final Direction[] ALL = values();
+
+		/**
+		 * Shifts every square in the given mask one diagonal step in this
+		 * direction; squares that would step off the board are dropped.
+		 */
+		abstract int step(int squares);
 	}
 
 	/**
@@ -119,14 +180,7 @@ public class Board implements Cloneable {
 	 * Constructor initializes the board to the start of a new game.
 	 */
 	public Board() {
-		positionStates = new PositionState[32];
-
-		for (int i =  0; i < 12; ++i)
-			positionStates[i] = PositionState.BLACK_MAN;
-		for (int i = 12; i < 20; ++i)
-			positionStates[i] = PositionState.EMPTY;
-		for (int i = 20; i < 32; ++i)
-			positionStates[i] = PositionState.WHITE_MAN;
+		this(0x00000FFF, 0xFFF00000, 0);
 	}
 
 	/**
@@ -135,12 +189,24 @@ public class Board implements Cloneable {
 	 * @param toCopy The Board to copy.
 	 */
 	public Board(Board toCopy) {
-		positionStates = new PositionState[32];
-		arraycopy(toCopy.positionStates, 0, positionStates, 0, 32);
+		set(toCopy);
 	}
 
 	public Board(PositionState[] positionStates) {
-		this.positionStates = positionStates;
+		for (int pos = 1; pos <= positionStates.length; ++pos)
+			setStateAt(pos, positionStates[pos - 1]);
+	}
+
+	/**
+	 * Constructor initializes the board directly from bitboards.
+	 */
+	public Board(int blackPieces, int whitePieces, int kings) {
+		assert (blackPieces & whitePieces) == 0;
+		assert (kings & ~(blackPieces | whitePieces)) == 0;
+		this.blackPieces = blackPieces;
+		this.whitePieces = whitePieces;
+		this.kings = kings;
+		this.key = Zobrist.of(blackPieces, whitePieces, kings);
 	}
 
 
@@ -149,17 +215,7 @@ public class Board implements Cloneable {
 	 * with both a double-jump and a single jump possible.
 	 */
 	public Board(boolean b) {
-		positionStates = new PositionState[32];
-
-		for (int i =  0; i < 32; ++i)
-			positionStates[i] = PositionState.EMPTY;
-
-		positionStates[8] = PositionState.BLACK_MAN;
-		positionStates[9] = PositionState.BLACK_MAN;
-
-		positionStates[13] = PositionState.WHITE_MAN;
-		positionStates[14] = PositionState.WHITE_MAN;
-		positionStates[21] = PositionState.WHITE_MAN;
+		this(bit(9) | bit(10), bit(14) | bit(15) | bit(22), 0);
 	}
 
 	/**
@@ -170,7 +226,7 @@ public class Board implements Cloneable {
 		for (int i = 0; i < 8; ++i) {
 			for (int j = 0; j < 4; ++j) {
 				if (i % 2 == 0) ret += " ";
-				ret += positionStates[i * 4 + j];
+				ret += stateAt(i * 4 + j + 1);
 				if (i % 2 != 0 && j < 3) ret += " ";
 			}
 			ret += "\n";
@@ -187,41 +243,98 @@ public class Board implements Cloneable {
 		return 1 <= pos && pos <= 32;
 	}
 
+	/**
+	 * Returns the bitboard mask of the given position.
+	 */
+	static int bit(int pos) {
+		assert isValidPos(pos);
+		return 1 << (pos - 1);
+	}
+
 	/**
 	 * Accesses the PositionState enum of a given position.  Useful if
 	 * you want to do a switch statement, or if you don't want to use
 	 * the boolean accessors provide below.
 	 */
 	public PositionState stateAt(int pos) {
-		assert isValidPos(pos);
-		return positionStates[pos - 1];
+		int bit = bit(pos);
+		if ((blackPieces & bit) != 0)
+			return (kings & bit) != 0 ? PositionState.BLACK_KING : PositionState.BLACK_MAN;
+		if ((whitePieces & bit) != 0)
+			return (kings & bit) != 0 ? PositionState.WHITE_KING : PositionState.WHITE_MAN;
+		return PositionState.EMPTY;
 	}
 
 	/**
 	 * Sets the PositionState enum of a given position.
 	 */
 	public void setStateAt(int pos, PositionState state) {
-		assert isValidPos(pos);
-		positionStates[pos - 1] = state;
+		int bit = bit(pos);
+		key ^= Zobrist.PIECE[stateAt(pos).ordinal()][pos]
+				^ Zobrist.PIECE[state.ordinal()][pos];
+
+		blackPieces &= ~bit;
+		whitePieces &= ~bit;
+		kings &= ~bit;
+
+		if (state.hasBlackPiece()) blackPieces |= bit;
+		if (state.hasWhitePiece()) whitePieces |= bit;
+		if (state.hasKing())       kings |= bit;
 	}
 
 	public int numPositionStates() {
-		return positionStates.length;
+		return 32;
 	}
 
-	public boolean hasPieceAt      (int pos) { return stateAt(pos).hasPiece(); }
-	public boolean hasManAt        (int pos) { return stateAt(pos).hasMan(); }
-	public boolean hasKingAt       (int pos) { return stateAt(pos).hasKing(); }
-	public boolean hasBlackPieceAt (int pos) { return stateAt(pos).hasBlackPiece(); }
-	public boolean hasBlackManAt   (int pos) { return stateAt(pos).hasBlackMan(); }
-	public boolean hasBlackKingAt  (int pos) { return stateAt(pos).hasBlackKing(); }
-	public boolean hasWhitePieceAt (int pos) { return stateAt(pos).hasWhitePiece(); }
-	public boolean hasWhiteManAt   (int pos) { return stateAt(pos).hasWhiteMan(); }
-	public boolean hasWhiteKingAt  (int pos) { return stateAt(pos).hasWhiteKing(); }
+	/**
+	 * Returns the 64-bit Zobrist key of the pieces on this board; it is
+	 * the same in every run of the program.  See also
+	 * {@link GameState#key()}, which includes whose turn it is.
+	 */
+	public long key() {
+		return key;
+	}
+
+	/**
+	 * Bitboard accessors; see the class description for the layout.
+	 */
+	public int blackPieces()  { return blackPieces; }
+	public int whitePieces()  { return whitePieces; }
+	public int kings()        { return kings; }
+	public int occupied()     { return blackPieces | whitePieces; }
+	public int emptySquares() { return ~(blackPieces | whitePieces); }
+
+	public int piecesOf(PlayerId p) {
+		return (p == PlayerId.BLACK) ? blackPieces : whitePieces;
+	}
 
-	public boolean hasPlayersPieceAt (int pos, PlayerId p) { return stateAt(pos).hasPlayersPiece(p); }
-	public boolean hasPlayersManAt   (int pos, PlayerId p) { return stateAt(pos).hasPlayersMan(p); }
-	public boolean hasPlayersKingAt  (int pos, PlayerId p) { return stateAt(pos).hasPlayersKing(p); }
+	/**
+	 * Material counts.  These are population counts of the bitboards, so
+	 * they are always in sync with the board and cost a single
+	 * instruction each; there is no separate count to maintain.
+	 */
+	public int blackMen()   { return Integer.bitCount(blackPieces & ~kings); }
+	public int blackKings() { return Integer.bitCount(blackPieces & kings); }
+	public int whiteMen()   { return Integer.bitCount(whitePieces & ~kings); }
+	public int whiteKings() { return Integer.bitCount(whitePieces & kings); }
+
+	public int menOf(PlayerId p)   { return Integer.bitCount(piecesOf(p) & ~kings); }
+	public int kingsOf(PlayerId p) { return Integer.bitCount(piecesOf(p) & kings); }
+	public int piecesCountOf(PlayerId p) { return Integer.bitCount(piecesOf(p)); }
+
+	public boolean hasPieceAt      (int pos) { return (occupied() & bit(pos)) != 0; }
+	public boolean hasManAt        (int pos) { return (occupied() & ~kings & bit(pos)) != 0; }
+	public boolean hasKingAt       (int pos) { return (kings & bit(pos)) != 0; }
+	public boolean hasBlackPieceAt (int pos) { return (blackPieces & bit(pos)) != 0; }
+	public boolean hasBlackManAt   (int pos) { return (blackPieces & ~kings & bit(pos)) != 0; }
+	public boolean hasBlackKingAt  (int pos) { return (blackPieces & kings & bit(pos)) != 0; }
+	public boolean hasWhitePieceAt (int pos) { return (whitePieces & bit(pos)) != 0; }
+	public boolean hasWhiteManAt   (int pos) { return (whitePieces & ~kings & bit(pos)) != 0; }
+	public boolean hasWhiteKingAt  (int pos) { return (whitePieces & kings & bit(pos)) != 0; }
+
+	public boolean hasPlayersPieceAt (int pos, PlayerId p) { return (piecesOf(p) & bit(pos)) != 0; }
+	public boolean hasPlayersManAt   (int pos, PlayerId p) { return (piecesOf(p) & ~kings & bit(pos)) != 0; }
+	public boolean hasPlayersKingAt  (int pos, PlayerId p) { return (piecesOf(p) & kings & bit(pos)) != 0; }
 
 	public PlayerId playerOfPieceAt(int pos) { return stateAt(pos).playerOfPiece(); }
 
@@ -251,9 +364,8 @@ public class Board implements Cloneable {
 	ArrayList<Walk> possibleWalks(PlayerId p) {
 		ArrayList<Walk> ret = new ArrayList<Walk>();
 
-		for (int i = 1; i <= 32; ++i)
-			if (hasPlayersPieceAt(i, p))
-				ret.addAll(possibleWalks(i));
+		for (int walkers = walkersOf(p); walkers != 0; walkers &= walkers - 1)
+			ret.addAll(possibleWalks(Integer.numberOfTrailingZeros(walkers) + 1));
 
 		return ret;
 	}
@@ -266,13 +378,328 @@ public class Board implements Cloneable {
 	public ArrayList<Jump> possibleJumps(PlayerId p) {
 		ArrayList<Jump> ret = new ArrayList<Jump>();
 
-		for (int i = 1; i <= 32; ++i)
-			if (hasPlayersPieceAt(i, p))
-				ret.addAll(possibleJumps(i));
+		for (int jumpers = jumpersOf(p); jumpers != 0; jumpers &= jumpers - 1)
+			ret.addAll(possibleJumps(Integer.numberOfTrailingZeros(jumpers) + 1));
 
 		return ret;
 	}
 
+	/**
+	 * Returns the mask of the given player's pieces that have at least
+	 * one walk move available.
+	 */
+	int walkersOf(PlayerId p) {
+		int empty = emptySquares();
+		int pieces = piecesOf(p);
+		int walkers = 0;
+
+		// stepping the empty squares backwards finds the pieces that could
+		// step forwards into them
+		for (Direction dir : Direction.ALL)
+			walkers |= movers(p, dir, pieces) & dir.opposite().step(empty);
+
+		return walkers;
+	}
+
+	/**
+	 * Returns the mask of the given player's pieces that have at least
+	 * one jump available.
+	 */
+	int jumpersOf(PlayerId p) {
+		int empty = emptySquares();
+		int pieces = piecesOf(p);
+		int opponents = piecesOf(p.opponent());
+		int jumpers = 0;
+
+		for (Direction dir : Direction.ALL) {
+			Direction back = dir.opposite();
+			jumpers |= movers(p, dir, pieces) & back.step(back.step(empty) & opponents);
+		}
+
+		return jumpers;
+	}
+
+	/**
+	 * Returns those of the given pieces (belonging to the given player)
+	 * that are allowed to move in the given direction: men can only move
+	 * forwards, but kings can move in any direction.
+	 */
+	int movers(PlayerId p, Direction dir, int pieces) {
+		return isForward(p, dir) ? pieces : (pieces & kings);
+	}
+
+	/**
+	 * Returns true if the given direction is forwards for the given
+	 * player's men.
+	 */
+	static boolean isForward(PlayerId p, Direction dir) {
+		return (p == PlayerId.BLACK) ? dir.isDown() : dir.isUp();
+	}
+
+	/**
+	 * Returns true if the specified player has any possible move; this
+	 * stops as soon as one is found, instead of generating them all.
+	 */
+	public boolean hasAnyMove(PlayerId p) {
+		return walkersOf(p) != 0 || jumpersOf(p) != 0;
+	}
+
+	/**
+	 * Returns true if the specified player has any possible jump move
+	 * (in which case only jump moves are allowed).
+	 */
+	public boolean hasAnyJump(PlayerId p) {
+		return jumpersOf(p) != 0;
+	}
+
+	/**
+	 * Returns true if the piece in the given position has any possible
+	 * jump move.
+	 */
+	public boolean hasAnyJump(int pos) {
+		return hasPieceAt(pos) && (jumpersOf(playerOfPieceAt(pos)) & bit(pos)) != 0;
+	}
+
+	/**
+	 * Returns the number of possible moves that can be made by the
+	 * specified player (the size of possibleMoves(p)), without building
+	 * any lists.
+	 */
+	public int countMoves(PlayerId p) {
+		int count = 0;
+		for (int jumpers = jumpersOf(p); jumpers != 0; jumpers &= jumpers - 1)
+			count += countJumps(Integer.numberOfTrailingZeros(jumpers) + 1);
+		if (count > 0)
+			return count;
+
+		int empty = emptySquares();
+		int pieces = piecesOf(p);
+		for (Direction dir : Direction.ALL)
+			count += Integer.bitCount(dir.step(movers(p, dir, pieces)) & empty);
+		return count;
+	}
+
+	/**
+	 * Returns the number of possible jump moves (complete jump sequences)
+	 * that can be made by the piece in the given position.
+	 */
+	public int countJumps(int pos) {
+		return generateJumps(pos, SCRATCH.get(), 0);
+	}
+
+	/**
+	 * Generates all the possible moves that can be made by the specified
+	 * player into the given ply of the buffer, replacing whatever was
+	 * there.  This is the allocation-free equivalent of
+	 * possibleMoves(PlayerId), and generates the same moves in the same
+	 * order, in {@link PackedMove} form.
+	 *
+	 * @return the number of moves generated
+	 */
+	public int generateMoves(PlayerId p, MoveBuffer buffer, int ply) {
+		buffer.clear(ply);
+		appendJumps(p, buffer, ply);
+		if (buffer.size(ply) == 0)
+			appendWalks(p, buffer, ply);
+		return buffer.size(ply);
+	}
+
+	/**
+	 * Generates all the possible jump moves that can be made by the
+	 * specified player into the given ply of the buffer, replacing
+	 * whatever was there.
+	 *
+	 * @return the number of moves generated
+	 */
+	public int generateJumps(PlayerId p, MoveBuffer buffer, int ply) {
+		buffer.clear(ply);
+		appendJumps(p, buffer, ply);
+		return buffer.size(ply);
+	}
+
+	/**
+	 * Generates all the possible jump moves that can be made by the piece
+	 * in the given position into the given ply of the buffer, replacing
+	 * whatever was there.
+	 *
+	 * @return the number of moves generated
+	 */
+	public int generateJumps(int pos, MoveBuffer buffer, int ply) {
+		buffer.clear(ply);
+		if (hasPieceAt(pos))
+			appendJumps(pos, buffer, ply);
+		return buffer.size(ply);
+	}
+
+	/**
+	 * Generates all the possible walk moves that can be made by the
+	 * specified player into the given ply of the buffer, replacing
+	 * whatever was there.  Like possibleWalks, this assumes that there
+	 * are no jump moves available!
+	 *
+	 * @return the number of moves generated
+	 */
+	public int generateWalks(PlayerId p, MoveBuffer buffer, int ply) {
+		buffer.clear(ply);
+		appendWalks(p, buffer, ply);
+		return buffer.size(ply);
+	}
+
+	/**
+	 * Returns true if the given packed walk move is one of the possible
+	 * moves of the specified player, exactly as the move generators would
+	 * generate it; this is checked directly, without generating any moves.
+	 */
+	public boolean isPossibleWalk(PlayerId p, long move) {
+		if (PackedMove.isJump(move))
+			return false;
+
+		int startPos = PackedMove.startPos(move);
+		int endPos = PackedMove.endPos(move);
+		int from = bit(startPos);
+		int to = bit(endPos);
+		boolean king = (kings & from) != 0;
+
+		return (piecesOf(p) & from) != 0
+				&& (emptySquares() & to) != 0
+				&& areWalkable(startPos, endPos)
+				&& king == PackedMove.movingKing(move)
+				&& (king || ((p == PlayerId.BLACK) ? endPos > startPos : endPos < startPos))
+				&& PackedMove.isPromotion(move) == (!king && (kingRowOf(p) & to) != 0)
+				&& jumpersOf(p) == 0;
+	}
+
+	private void appendWalks(PlayerId p, MoveBuffer buffer, int ply) {
+		int empty = emptySquares();
+		int kingRow = kingRowOf(p);
+
+		for (int walkers = walkersOf(p); walkers != 0; walkers &= walkers - 1) {
+			int pos = Integer.numberOfTrailingZeros(walkers) + 1;
+			boolean king = (kings & bit(pos)) != 0;
+
+			for (Direction dir : Direction.ALL) {
+				int toPos = BoardGeometry.WALK[pos][dir.ordinal()];
+				if (toPos != 0 && (empty & bit(toPos)) != 0
+						&& (king || isForward(p, dir)))
+					buffer.add(ply, PackedMove.walk(pos, toPos, king,
+							!king && (kingRow & bit(toPos)) != 0));
+			}
+		}
+	}
+
+	/**
+	 * Returns the mask of the king row that the given player's men are
+	 * crowned on.
+	 */
+	static int kingRowOf(PlayerId p) {
+		return (p == PlayerId.BLACK) ? BLACKS_KING_ROW : WHITES_KING_ROW;
+	}
+
+	private void appendJumps(PlayerId p, MoveBuffer buffer, int ply) {
+		for (int jumpers = jumpersOf(p); jumpers != 0; jumpers &= jumpers - 1)
+			appendJumps(Integer.numberOfTrailingZeros(jumpers) + 1, buffer, ply);
+	}
+
+	/**
+	 * Appends the jumps of the piece in the given position to the buffer.
+	 */
+	private void appendJumps(int pos, MoveBuffer buffer, int ply) {
+		int bit = bit(pos);
+		PlayerId p = ((blackPieces & bit) != 0) ? PlayerId.BLACK : PlayerId.WHITE;
+
+		// the jumping piece is "picked up", such that its position appears
+		// empty, such that it can jump around in a circle and land there
+		expandJumps(p, (kings & bit) != 0, pos, pos, 0, 0,
+				piecesOf(p.opponent()), emptySquares() | bit,
+				buffer, ply, buffer.size(ply));
+	}
+
+	/**
+	 * Recursive depth-first search over the jump sequences that can
+	 * continue from the given position.  Jumped pieces stay on the board
+	 * until the sequence is complete, so they can't be landed on or
+	 * jumped twice.
+	 * <p>
+	 * A king can sometimes jump the same pieces in a different order
+	 * (e.g. around a loop in either direction) and end up in the same
+	 * place; such sequences are the same move as far as the game is
+	 * concerned, so only the first one found is added to the buffer.
+	 *
+	 * @param captured mask of the positions jumped over so far
+	 * @param landings mask of the positions landed on so far, before pos
+	 * @param empty    mask of the empty positions, at the start of the
+	 *                 sequence
+	 * @param first    index in the buffer of the first sequence added for
+	 *                 this piece, i.e. the first that could be the same
+	 *                 move as a new one
+	 */
+	private void expandJumps(PlayerId p, boolean king, int startPos,
+			int pos, int captured, int landings, int opponents, int empty,
+			MoveBuffer buffer, int ply, int first) {
+		boolean atEndOfJump = true;
+
+		for (Direction dir : Direction.ALL) {
+			int landPos = jumpLandPos(p, king, pos, dir, captured, opponents, empty);
+			if (landPos != 0) {
+				atEndOfJump = false;
+				expandJumps(p, king, startPos, landPos,
+						captured | bit(BoardGeometry.JUMPED[pos][dir.ordinal()]),
+						(captured != 0) ? landings | bit(pos) : landings,
+						opponents, empty, buffer, ply, first);
+			}
+		}
+
+		if (atEndOfJump && captured != 0) {
+			long move = PackedMove.jump(startPos, pos, king,
+					!king && (kingRowOf(p) & bit(pos)) != 0,
+					captured, captured & kings, landings);
+
+			// different orders of the same jumps need a loop, which takes
+			// at least 4 jumps, and men can't loop back
+			if (king && Integer.bitCount(captured) >= 4
+					&& containsSameMove(buffer, ply, first, move))
+				return;
+
+			buffer.add(ply, move);
+		}
+	}
+
+	/**
+	 * Returns the position that the given player's piece (a king or not)
+	 * would land on by jumping from pos in the given direction, partway
+	 * through a jump sequence, or 0 if it can't.
+	 *
+	 * @param captured mask of the positions jumped over so far
+	 * @param empty    mask of the empty positions, at the start of the
+	 *                 sequence
+	 */
+	private static int jumpLandPos(PlayerId p, boolean king, int pos,
+			Direction dir, int captured, int opponents, int empty) {
+		int d = dir.ordinal();
+		int landPos = BoardGeometry.JUMP[pos][d];
+		if (landPos == 0 || !(king || isForward(p, dir)))
+			return 0;
+
+		int jumped = bit(BoardGeometry.JUMPED[pos][d]);
+		if ((opponents & ~captured & jumped) == 0 || (empty & bit(landPos)) == 0)
+			return 0;
+		return landPos;
+	}
+
+	/**
+	 * Returns true if the given ply of the buffer, from index first on,
+	 * contains the same move as the given one (see
+	 * {@link PackedMove#isSameMove}).
+	 */
+	private static boolean containsSameMove(MoveBuffer buffer, int ply,
+			int first, long move) {
+		long[] moves = buffer.moves(ply);
+		for (int i = first; i < buffer.size(ply); ++i)
+			if (PackedMove.isSameMove(moves[i], move))
+				return true;
+		return false;
+	}
+
 	/**
 	 * Returns true if a move can be made from fromPos to toPos.
 	 */
@@ -305,7 +732,7 @@ public class Board implements Cloneable {
 			// this is a walk move
 
 			// make sure there are no jumps available
-			if (possibleJumps(movingPlayer).size() > 0) {
+			if (jumpersOf(movingPlayer) != 0) {
 				// forced jump! throw excepton?
 				assert false;
 				return false;
@@ -384,8 +811,24 @@ public class Board implements Cloneable {
 	}
 
 	public boolean isPossibleMove(Move move) {
-		return possibleMoves(PlayerId.BLACK).contains(move)
-				|| possibleMoves(PlayerId.WHITE).contains(move);
+		// only the moving piece's owner could possibly make the move
+		return hasPieceAt(move.startPos())
+				&& isPossibleMove(playerOfPieceAt(move.startPos()), move);
+	}
+
+	/**
+	 * Returns true if the given move is one of the possible moves of the
+	 * specified player.  A jump sequence matches if it jumps the same
+	 * pieces as a possible one, in any valid order.
+	 */
+	public boolean isPossibleMove(PlayerId p, Move move) {
+		if (!hasPlayersPieceAt(move.startPos(), p))
+			return false;
+		long packed = PackedMove.fromMove(move);
+		for (long possible : MoveCache.get().moves(this, p, 0))
+			if (PackedMove.isSameMove(possible, packed))
+				return true;
+		return false;
 	}
 
 	public void makeMove(Move move) {
@@ -395,59 +838,140 @@ public class Board implements Cloneable {
 	}
 
 	public void makeMoveUnchecked(Move move) {
-		PositionState startingState = stateAt(move.startPos());
-		setStateAt(move.startPos(), PositionState.EMPTY);
-		setStateAt(move.endPos(), startingState);
+		int from = bit(move.startPos());
+		int to = bit(move.endPos());
+		int captured = capturedSquares(move);
+		boolean black = (blackPieces & from) != 0;
+		assert black || (whitePieces & from) != 0;
+
+		int changed = from | to | captured;
+		key ^= keyOf(changed);
+
+		// pick the piece up and put it down again (from and to may be the
+		// same position, if a king jumped around in a circle)
+		if (black)
+			blackPieces = (blackPieces & ~from) | to;
+		else
+			whitePieces = (whitePieces & ~from) | to;
+		if ((kings & from) != 0)
+			kings = (kings & ~from) | to;
 
-		if (move.isJump()) {
-			for (int i = 1; i < move.getSequence().size(); ++i) {
-				setStateAt(jumpOverPos(
-							move.getSequence().get(i - 1),
-							move.getSequence().get(i)), PositionState.EMPTY);
-			}
-		}
+		if (black)
+			whitePieces &= ~captured;
+		else
+			blackPieces &= ~captured;
+		kings &= ~captured;
+
+		if ((to & (black ? BLACKS_KING_ROW : WHITES_KING_ROW)) != 0)
+			kings |= to;
+
+		key ^= keyOf(changed);
+	}
 
-		if (posIsInBlacksKingRow(move.endPos()) && hasBlackManAt(move.endPos())) {
-			setStateAt(move.endPos(), PositionState.BLACK_KING);
-		} else if (posIsInWhitesKingRow(move.endPos()) && hasWhiteManAt(move.endPos())) {
-			setStateAt(move.endPos(), PositionState.WHITE_KING);
+	/**
+	 * Returns the Zobrist key of just the pieces on the given positions.
+	 */
+	private long keyOf(int squares) {
+		return Zobrist.of(blackPieces & squares, whitePieces & squares, kings & squares);
+	}
+
+	/**
+	 * Makes the given packed move, without checking that it is possible.
+	 * This is the fast equivalent of makeMoveUnchecked(Move): every change
+	 * is a single XOR, so undoMove(long) is just the same XORs again.
+	 */
+	public void makeMove(long move) {
+		int from = bit(PackedMove.startPos(move));
+		int to = bit(PackedMove.endPos(move));
+		int moved = from ^ to; // 0 if a king jumped around in a circle
+		int captured = PackedMove.captured(move);
+
+		if ((blackPieces & from) != 0) {
+			blackPieces ^= moved;
+			whitePieces ^= captured;
+			key ^= moveKey(move, PlayerId.BLACK);
+		} else {
+			assert (whitePieces & from) != 0;
+			whitePieces ^= moved;
+			blackPieces ^= captured;
+			key ^= moveKey(move, PlayerId.WHITE);
 		}
+
+		if (PackedMove.movingKing(move))
+			kings ^= moved;
+		kings ^= PackedMove.capturedKings(move);
+		if (PackedMove.isPromotion(move))
+			kings ^= to;
 	}
 
-	//TODO: undo move
-	public void undoMoveUnchecked(Move move) {
-		PositionState landingState = stateAt(move.endPos());
-		assert landingState.hasPiece();
+	/**
+	 * Takes back the given packed move, which must have been the last
+	 * move made on this board.
+	 */
+	public void undoMove(long move) {
+		int from = bit(PackedMove.startPos(move));
+		int to = bit(PackedMove.endPos(move));
+		int moved = from ^ to;
+		int captured = PackedMove.captured(move);
+
+		if (PackedMove.isPromotion(move))
+			kings ^= to;
+		kings ^= PackedMove.capturedKings(move);
+		if (PackedMove.movingKing(move))
+			kings ^= moved;
+
+		if ((blackPieces & to) != 0) {
+			blackPieces ^= moved;
+			whitePieces ^= captured;
+			key ^= moveKey(move, PlayerId.BLACK);
+		} else {
+			assert (whitePieces & to) != 0;
+			whitePieces ^= moved;
+			blackPieces ^= captured;
+			key ^= moveKey(move, PlayerId.WHITE);
+		}
+	}
 
-		setStateAt(move.endPos(), PositionState.EMPTY);
-		setStateAt(move.startPos(), landingState);
+	/**
+	 * Returns the change in Zobrist key made by the given packed move
+	 * (or by undoing it), by the given player.
+	 */
+	private static long moveKey(long move, PlayerId p) {
+		PositionState man = PositionState.createPieceForPlayer(p, false);
+		PositionState king = PositionState.createPieceForPlayer(p, true);
+		boolean movingKing = PackedMove.movingKing(move);
+		PositionState landed = (movingKing || PackedMove.isPromotion(move)) ? king : man;
+		int captured = PackedMove.captured(move);
+		int capturedKings = PackedMove.capturedKings(move);
+
+		return Zobrist.PIECE[(movingKing ? king : man).ordinal()][PackedMove.startPos(move)]
+				^ Zobrist.PIECE[landed.ordinal()][PackedMove.endPos(move)]
+				^ Zobrist.squares(PositionState.createPieceForPlayer(p.opponent(), false),
+						captured & ~capturedKings)
+				^ Zobrist.squares(PositionState.createPieceForPlayer(p.opponent(), true),
+						capturedKings);
+	}
 
+	/**
+	 * Returns the mask of the positions jumped over by the given move.
+	 */
+	static int capturedSquares(Move move) {
+		int captured = 0;
 		if (move.isJump()) {
-			Jump jump = (Jump) move;
-			for (int i = 1; i < jump.getSequence().size(); ++i) {
-				setStateAt(
-						jumpOverPos(
-							jump.getSequence().get(i - 1),
-							jump.getSequence().get(i)),
-						PositionState.createPieceForPlayer(
-							landingState.playerOfPiece().opponent(),
-							jump.jumpedKings().get(i - 1)));
-			}
+			for (int i = 1; i < move.getSequence().size(); ++i)
+				captured |= bit(jumpOverPos(
+						move.getSequence().get(i - 1),
+						move.getSequence().get(i)));
 		}
-
-		// if we weren't moving a king, make sure the returned piece is a man
-		if (!move.movingKing())
-			setStateAt(move.startPos(),
-					PositionState.createPieceForPlayer(
-						stateAt(move.startPos()).playerOfPiece(), false));
+		return captured;
 	}
 
 	static boolean posIsInBlacksKingRow(int pos) {
-		return 29 <= pos && pos <= 32;
+		return (BLACKS_KING_ROW & bit(pos)) != 0;
 	}
 
 	static boolean posIsInWhitesKingRow(int pos) {
-		return 1 <= pos && pos <= 4;
+		return (WHITES_KING_ROW & bit(pos)) != 0;
 	}
 
 	/**
@@ -456,10 +980,7 @@ public class Board implements Cloneable {
 	 */
 	static int jumpOverPos(int fromPos, int toPos) {
 		assert areJumpable(fromPos, toPos);
-		for (Direction dir : Direction.values())
-			if (hasJumpPos(fromPos, dir) && jumpPos(fromPos, dir) == toPos)
-				return new SingleJumpInfo(fromPos, dir).jumpedPos();
-		return 0;
+		return BoardGeometry.OVER[fromPos][toPos];
 	}
 
 	/**
@@ -482,8 +1003,14 @@ public class Board implements Cloneable {
 	 * single jump move may be part of a longer sequence of jumps.
 	 */
 	public boolean singleJumpIsPossible(int fromPos, int toPos) {
-		for (Jump j : possibleJumps(fromPos))
-			if (j.startPos() == fromPos && j.getSequence().get(1) == toPos)
+		if (!isValidPos(fromPos))
+			return false;
+
+		// every single jump the piece can make starts at least one jump
+		// sequence
+		for (Direction dir : Direction.ALL)
+			if (BoardGeometry.JUMP[fromPos][dir.ordinal()] == toPos
+					&& canJump(fromPos, dir))
 				return true;
 
 		return false;
@@ -495,29 +1022,56 @@ public class Board implements Cloneable {
 	 * possible jump move sequences.
 	 */
 	boolean singleJumpIsComplete(int fromPos, int toPos) {
-		for (Jump j : possibleJumps(fromPos))
-			if (j.startPos() == fromPos && j.getSequence().get(1) == toPos)
-				return j.getSequence().size() == 2;
+		if (!singleJumpIsPossible(fromPos, toPos))
+			return false;
 
-		return false;
+		PlayerId p = playerOfPieceAt(fromPos);
+		boolean king = hasKingAt(fromPos);
+		int captured = bit(jumpOverPos(fromPos, toPos));
+		int opponents = piecesOf(p.opponent());
+		int empty = emptySquares() | bit(fromPos);
+
+		for (Direction dir : Direction.ALL)
+			if (jumpLandPos(p, king, toPos, dir, captured, opponents, empty) != 0)
+				return false;
+
+		return true;
 	}
 
 	/**
-	 * Returns true if the given position is a square in row 1, 3, 5, or
-	 * 7 (in other words, in 1-4, 9-12, 17-20, or 25-28); else false.
+	 * Returns the single moves (walks, or individual jumps) that can start
+	 * a move of the specified player.  Unlike the first steps of
+	 * possibleMoves(p), this includes the first jumps of sequences that
+	 * are only different orders of the same jumps.
 	 */
-	static boolean isInOddRow(int pos) {
-		assert isValidPos(pos);
-		return ((pos - 1) / 4) % 2 == 0;
+	public ArrayList<SingleMove> possibleSingleMoves(PlayerId p) {
+		ArrayList<SingleMove> ret = new ArrayList<SingleMove>();
+
+		int jumpers = jumpersOf(p);
+		if (jumpers != 0) {
+			for (; jumpers != 0; jumpers &= jumpers - 1)
+				ret.addAll(possibleSingleJumps(Integer.numberOfTrailingZeros(jumpers) + 1));
+		} else {
+			for (Walk walk : possibleWalks(p))
+				ret.add(new SingleMove(walk.startPos(), walk.endPos()));
+		}
+
+		return ret;
 	}
 
 	/**
-	 * Returns true if the given position is a square in row 2, 4, 6, or
-	 * 8 (in other words, in 5-8, 13-16, 21-24, or 29-32); else false.
+	 * Returns the individual jumps that the piece in the given position
+	 * can start a jump sequence with.
 	 */
-	static boolean isInEvenRow(int pos) {
-		assert isValidPos(pos);
-		return !isInOddRow(pos);
+	public ArrayList<SingleMove> possibleSingleJumps(int pos) {
+		ArrayList<SingleMove> ret = new ArrayList<SingleMove>();
+
+		if (hasPieceAt(pos))
+			for (Direction dir : Direction.ALL)
+				if (canJump(pos, dir))
+					ret.add(new SingleMove(pos, jumpPos(pos, dir)));
+
+		return ret;
 	}
 
 	/**
@@ -526,14 +1080,7 @@ public class Board implements Cloneable {
 	 */
 	static boolean hasWalkPos(int pos, Direction dir) {
 		assert isValidPos(pos);
-		switch (dir) {
-		case UP_LEFT:    return (pos >  4) && (pos % 8 != 5);
-		case UP_RIGHT:   return (pos >  4) && (pos % 8 != 4);
-		case DOWN_LEFT:  return (pos < 29) && (pos % 8 != 5);
-		case DOWN_RIGHT: return (pos < 29) && (pos % 8 != 4);
-		default: assert false;
-		}
-		return false;
+		return BoardGeometry.WALK[pos][dir.ordinal()] != 0;
 	}
 
 	/**
@@ -542,14 +1089,7 @@ public class Board implements Cloneable {
 	 */
 	static boolean hasJumpPos(int pos, Direction dir) {
 		assert isValidPos(pos);
-		switch (dir) {
-		case UP_LEFT:    return (pos >  8) && (pos % 4 != 1);
-		case UP_RIGHT:   return (pos >  8) && (pos % 4 != 0);
-		case DOWN_LEFT:  return (pos < 25) && (pos % 4 != 1);
-		case DOWN_RIGHT: return (pos < 25) && (pos % 4 != 0);
-		default: assert false;
-		}
-		return false;
+		return BoardGeometry.JUMP[pos][dir.ordinal()] != 0;
 	}
 
 	/**
@@ -557,17 +1097,8 @@ public class Board implements Cloneable {
 	 * position, in the given direction.
 	 */
 	static int walkPos(int pos, Direction dir) {
-		assert isValidPos(pos);
 		assert hasWalkPos(pos, dir);
-		switch (dir) {
-		// sorry about this ugliness :( ------- (e.g. pos 9) (e.g. pos 6)
-		case UP_LEFT:    return isInOddRow(pos) ? (pos - 4) : (pos - 5);
-		case UP_RIGHT:   return isInOddRow(pos) ? (pos - 3) : (pos - 4);
-		case DOWN_LEFT:  return isInOddRow(pos) ? (pos + 4) : (pos + 3);
-		case DOWN_RIGHT: return isInOddRow(pos) ? (pos + 5) : (pos + 4);
-		default: assert false;
-		}
-		return 0;
+		return BoardGeometry.WALK[pos][dir.ordinal()];
 	}
 
 	/**
@@ -575,16 +1106,17 @@ public class Board implements Cloneable {
 	 * position, in the given direction.
 	 */
 	static int jumpPos(int pos, Direction dir) {
-		assert isValidPos(pos);
 		assert hasJumpPos(pos, dir);
-		switch (dir) {
-		case UP_LEFT:    return pos - 9;
-		case UP_RIGHT:   return pos - 7;
-		case DOWN_LEFT:  return pos + 7;
-		case DOWN_RIGHT: return pos + 9;
-		default: assert false;
-		}
-		return 0;
+		return BoardGeometry.JUMP[pos][dir.ordinal()];
+	}
+
+	/**
+	 * Returns the position that is jumped over when jumping from the
+	 * given position, in the given direction.
+	 */
+	static int jumpedPos(int pos, Direction dir) {
+		assert hasJumpPos(pos, dir);
+		return BoardGeometry.JUMPED[pos][dir.ordinal()];
 	}
 
 	/**
@@ -592,11 +1124,7 @@ public class Board implements Cloneable {
 	 * another; else false.
 	 */
 	public static boolean areWalkable(int pos1, int pos2) {
-		for (Direction dir : Direction.values())
-		    if (hasWalkPos(pos1, dir) && walkPos(pos1, dir) == pos2)
-				return true;
-
-		return false;
+		return BoardGeometry.relation(pos1, pos2) == BoardGeometry.WALKABLE;
 	}
 
 	/**
@@ -604,11 +1132,7 @@ public class Board implements Cloneable {
 	 * another; else false.
 	 */
 	public static boolean areJumpable(int pos1, int pos2) {
-		for (Direction dir : Direction.values())
-		    if (hasJumpPos(pos1, dir) && jumpPos(pos1, dir) == pos2)
-				return true;
-
-		return false;
+		return BoardGeometry.relation(pos1, pos2) == BoardGeometry.JUMPABLE;
 	}
 
 	/**
@@ -618,15 +1142,15 @@ public class Board implements Cloneable {
 	 * or if there is no such piece in the given position.
 	 */
 	boolean canWalk(int pos, Direction dir) {
-		assert isValidPos(pos);
+		int bit = bit(pos);
 		return (
 			// make sure the walk-to position exists and is empty
-			hasWalkPos(pos, dir) && !hasPieceAt(walkPos(pos, dir)) && (
+			(dir.step(bit) & emptySquares()) != 0 && (
 				// kings can walk in any direction
-				hasKingAt(pos) ||
+				(kings & bit) != 0 ||
 				// men have to walk in the correct direction
-				(hasBlackManAt(pos) && dir.isDown()) ||
-				(hasWhiteManAt(pos) && dir.isUp())
+				((blackPieces & bit) != 0 && dir.isDown()) ||
+				((whitePieces & bit) != 0 && dir.isUp())
 			)
 		);
 	}
@@ -654,10 +1178,10 @@ public class Board implements Cloneable {
 	boolean couldJump(
 			PositionState hypotheticalPosState, int pos, Direction dir
 	) {
-		assert isValidPos(pos);
+		int jumpedOver = dir.step(bit(pos));
 
 		// make sure the landing position exists and is empty
-		if (!hasJumpPos(pos, dir) || hasPieceAt(jumpPos(pos, dir)))
+		if ((dir.step(jumpedOver) & emptySquares()) == 0)
 			return false;
 
 		switch (hypotheticalPosState) {
@@ -671,7 +1195,7 @@ public class Board implements Cloneable {
 			// fall thru
 		case BLACK_KING:
 			// pieces must jump over an opponent piece
-			return stateAt(walkPos(pos, dir)).hasPlayersPiece(PlayerId.WHITE);
+			return (jumpedOver & whitePieces) != 0;
 
 		case WHITE_MAN:
 			// men have to jump in the correct direction
@@ -679,7 +1203,7 @@ public class Board implements Cloneable {
 			// fall thru
 		case WHITE_KING:
 			// pieces must jump over an opponent piece
-			return stateAt(walkPos(pos, dir)).hasPlayersPiece(PlayerId.BLACK);
+			return (jumpedOver & blackPieces) != 0;
 
 		default:
 			assert false;
@@ -697,7 +1221,7 @@ public class Board implements Cloneable {
 		assert isValidPos(pos);
 		ArrayList<Walk> ret = new ArrayList<Walk>();
 
-		for (Direction dir : Direction.values())
+		for (Direction dir : Direction.ALL)
 			if (canWalk(pos, dir))
 				ret.add(new Walk(pos, walkPos(pos, dir), hasKingAt(pos)));
 
@@ -707,125 +1231,21 @@ public class Board implements Cloneable {
 	/**
 	 * Returns a list of all the possible jump moves (full jump
 	 * sequences) that can be made from the given position, in the
-	 * current board state.
+	 * current board state.  Sequences that only jump the same pieces in
+	 * a different order are listed once.
 	 */
 	public ArrayList<Jump> possibleJumps(int pos) {
 		assert isValidPos(pos) : pos;
 
 		ArrayList<Jump> ret = new ArrayList<Jump>();
-		ArrayList<SingleJumpInfo> jumpSequence =
-			new ArrayList<SingleJumpInfo>();
-
-		for (Direction dir : Direction.values()) {
-			if (canJump(pos, dir)) {
-				// temporarily "pick up" the piece we are considering
-				// jumping with, such that its position appears empty,
-				// such that the piece can conceivably jump around in a
-				// circle and land in the original position.
-				PositionState origPosState = stateAt(pos);
-				setStateAt(pos, PositionState.EMPTY);
-
-				jumpSequence.add(new SingleJumpInfo(pos, dir));
-				expandJumpSequence(origPosState, jumpSequence, ret);
-				jumpSequence.clear();
-
-				// put the piece back (we haven't really jumped yet)
-				setStateAt(pos, origPosState);
-			}
-		}
+		MoveBuffer buffer = SCRATCH.get();
+		int count = generateJumps(pos, buffer, 0);
+		for (int i = 0; i < count; ++i)
+			ret.add((Jump) PackedMove.toMove(buffer.get(0, i)));
 
 		return ret;
 	}
 
-	/**
-	 * Somewhat klugey class that temporarily maintains information
-	 * about a single, individual jump (part of a complete jump
-	 * sequence).
-	 */
-	private static class SingleJumpInfo {
-		public SingleJumpInfo(int startPos, Direction dir) {
-			this.startPos = startPos;
-			this.dir = dir;
-		}
-
-		int startPos() { return startPos; }
-		int jumpedPos() { return walkPos(startPos, dir); }
-		int endPos() { return jumpPos(startPos, dir); }
-
-		private int startPos;
-		private Direction dir;
-	}
-
-	/**
-	 * Returns true if the given jump sequence already contains a jump
-	 * that happened over the given position; false otherwise.
-	 */
-	private static boolean hasAlreadyJumpedOver(
-			ArrayList<SingleJumpInfo> jumpSequence, int pos
-	) {
-		assert isValidPos(pos);
-
-		for (int i = 0; i < jumpSequence.size(); ++i)
-			if (jumpSequence.get(i).jumpedPos() == pos)
-				return true;
-
-		return false;
-	}
-
-	/**
-	 * Recursive method performs a depth-first search on the possible
-	 * jump sequences that can be made from the given partial jump
-	 * sequence, happening on the current board state.  If it reaches
-	 * the end of a jump sequence, it adds the complete sequence to the
-	 * list of jumps.
-	 *
-	 * @param startPosState state of the position that the jumpSequence
-	 *                      started from; this is just used to identify
-	 *                      the piece that is actually doing the jumping
-	 * @param jumpSequence  partial sequence of jumps; this acts as a
-	 *                      stack that maintains the current state of
-	 *                      our depth-first traversal of the jump
-	 *                      sequence tree
-	 * @param jumps         the output list of complete jump moves
-	 */
-	private void expandJumpSequence(
-			PositionState startPosState,
-			ArrayList<SingleJumpInfo> jumpSequence,
-			ArrayList<Jump> jumps
-	) {
-		boolean atEndOfJump = true;
-
-		for (Direction dir : Direction.values()) {
-			int pos = jumpSequence.get(jumpSequence.size() - 1).endPos();
-			if (couldJump(startPosState, pos, dir)) {
-				SingleJumpInfo jump = new SingleJumpInfo(pos, dir);
-				if (!hasAlreadyJumpedOver(jumpSequence, jump.jumpedPos())) {
-					atEndOfJump = false;
-					jumpSequence.add(jump);
-					expandJumpSequence(startPosState, jumpSequence, jumps);
-					jumpSequence.remove(jumpSequence.size() - 1);
-				}
-			}
-		}
-
-		if (atEndOfJump) {
-			int pos0 = jumpSequence.get(0).startPos();
-			int pos1 = jumpSequence.get(0).endPos();
-			boolean jumpedKingFirst =
-					hasKingAt(jumpSequence.get(0).jumpedPos());
-
-			Jump jump = new Jump(pos0, pos1,
-					startPosState.hasKing(), jumpedKingFirst);
-
-			for (int i = 1; i < jumpSequence.size(); ++i)
-				jump.jumpAgain(
-						jumpSequence.get(i).endPos(),
-						hasKingAt(jumpSequence.get(i).jumpedPos()));
-
-			jumps.add(jump);
-		}
-	}
-
 	/**
 	 * Converts a sequence of position integers into a Move object.
 	 */
@@ -868,10 +1288,47 @@ public class Board implements Cloneable {
 		return jump;
 	}
 
+	/**
+	 * Returns the position that the given position ends up in when the
+	 * board is rotated 180 degrees (see {@link #flipped()}).
+	 */
+	public static int flipPos(int pos) {
+		assert isValidPos(pos);
+		return 33 - pos;
+	}
+
+	/**
+	 * Returns the given bitboard mask with every position flipped (see
+	 * {@link #flipPos(int)}); since bit (pos - 1) moves to bit (32 - pos),
+	 * this just reverses the bits.
+	 */
+	public static int flipMask(int mask) {
+		return Integer.reverse(mask);
+	}
+
+	/**
+	 * Returns a new Board with the colors swapped and the board rotated 180
+	 * degrees, which is the same position from the other player's point of
+	 * view: every black piece becomes a white piece in the flipped
+	 * position, and vice versa.
+	 */
+	public Board flipped() {
+		return new Board(flipMask(whitePieces), flipMask(blackPieces), flipMask(kings));
+	}
+
 	public void set(Board board) {
-		for (int i = 0; i < positionStates.length; i++) {
-			positionStates[i] = board.positionStates[i];
-		}
+		restore(board.blackPieces, board.whitePieces, board.kings, board.key);
+	}
+
+	/**
+	 * Sets the bitboards, and the key that goes with them, e.g. from an
+	 * {@link UndoStack} record.
+	 */
+	void restore(int blackPieces, int whitePieces, int kings, long key) {
+		this.blackPieces = blackPieces;
+		this.whitePieces = whitePieces;
+		this.kings = kings;
+		this.key = key;
 	}
 
 	public boolean equals(Object other) {
@@ -879,21 +1336,12 @@ public class Board implements Cloneable {
 			false;
 
 		Board otherBoard = (Board) other;
-
-		if (positionStates.length != otherBoard.positionStates.length)
-			return false;
-
-		for (int i = 0; i < positionStates.length; ++i)
-			if (positionStates[i] != otherBoard.positionStates[i])
-				return false;
-
-		return true;
+		return blackPieces == otherBoard.blackPieces
+				&& whitePieces == otherBoard.whitePieces
+				&& kings == otherBoard.kings;
 	}
 
 	public int hashCode() {
-		int hash = 1;
-		for (int i = 0; i < positionStates.length; ++i)
-			hash = hash * 31 + positionStates[i].hashCode();
-		return hash;
+		return (int) (key ^ (key >>> 32));
 	}
 }
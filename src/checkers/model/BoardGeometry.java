@@ -0,0 +1,179 @@
+package checkers.model;
+
+import checkers.model.Board.Direction;
+
+/**
+ * Precomputed tables describing the fixed geometry of the board: which
+ * positions neighbor each other in each direction, where jumps land, and
+ * which position they jump over.  See {@link Board} for the position
+ * numbering and orientation.
+ * <p>
+ * All tables are indexed directly by position ID (1 thru 32; index 0 is
+ * unused) and, where applicable, by {@link Direction#ordinal()}.  A value
+ * of 0 means there is no such position.
+ */
+final class BoardGeometry {
+	/**
+	 * Relationships between an ordered pair of positions, as stored in
+	 * {@link #RELATION}.
+	 */
+	static final byte UNRELATED = 0;
+	static final byte WALKABLE  = 1;
+	static final byte JUMPABLE  = 2;
+
+	/**
+	 * WALK[pos][dir] is the position one diagonal step from pos.
+	 */
+	static final int[][] WALK = new int[33][4];
+
+	/**
+	 * JUMP[pos][dir] is the position a jump from pos lands on.
+	 */
+	static final int[][] JUMP = new int[33][4];
+
+	/**
+	 * JUMPED[pos][dir] is the position a jump from pos jumps over.
+	 */
+	static final int[][] JUMPED = new int[33][4];
+
+	/**
+	 * RELATION[pos1][pos2] is one of UNRELATED, WALKABLE or JUMPABLE.
+	 */
+	static final byte[][] RELATION = new byte[33][33];
+
+	/**
+	 * OVER[fromPos][toPos] is the position jumped over when jumping from
+	 * fromPos to toPos, or 0 if the two are not jumpable.
+	 */
+	static final int[][] OVER = new int[33][33];
+
+	/**
+	 * The positions that a piece starting at a given position could
+	 * possibly land on during a jump sequence form a "jump lattice" of at
+	 * most 8 positions (a jump moves two rows and two columns at once).
+	 * LATTICE_INDEX[pos][landPos] numbers those positions 0 thru 7, in
+	 * ascending order, or is -1 if landPos is not in pos's lattice; and
+	 * LATTICE[pos][index] maps back to the position.
+	 */
+	static final byte[][] LATTICE_INDEX = new byte[33][33];
+	static final int[][] LATTICE = new int[33][8];
+
+	static {
+		for (int pos = 1; pos <= 32; ++pos) {
+			for (Direction dir : Direction.ALL) {
+				int d = dir.ordinal();
+
+				if (hasWalkPos(pos, dir)) {
+					WALK[pos][d] = walkPos(pos, dir);
+					RELATION[pos][WALK[pos][d]] = WALKABLE;
+				}
+
+				if (hasJumpPos(pos, dir)) {
+					JUMP[pos][d] = jumpPos(pos, dir);
+					JUMPED[pos][d] = WALK[pos][d];
+					RELATION[pos][JUMP[pos][d]] = JUMPABLE;
+					OVER[pos][JUMP[pos][d]] = JUMPED[pos][d];
+				}
+			}
+		}
+
+		for (int pos = 1; pos <= 32; ++pos) {
+			// flood fill the jump graph of an empty board from pos
+			boolean[] reached = new boolean[33];
+			int[] queue = new int[33];
+			int head = 0, tail = 0;
+			reached[pos] = true;
+			queue[tail++] = pos;
+			while (head < tail) {
+				int from = queue[head++];
+				for (int d = 0; d < 4; ++d) {
+					int to = JUMP[from][d];
+					if (to != 0 && !reached[to]) {
+						reached[to] = true;
+						queue[tail++] = to;
+					}
+				}
+			}
+
+			byte index = 0;
+			for (int landPos = 0; landPos <= 32; ++landPos) {
+				if (reached[landPos]) {
+					LATTICE[pos][index] = landPos;
+					LATTICE_INDEX[pos][landPos] = index++;
+				} else {
+					LATTICE_INDEX[pos][landPos] = -1;
+				}
+			}
+			assert index <= 8;
+		}
+	}
+
+	private BoardGeometry() { }
+
+	/**
+	 * Returns the relationship between two positions, treating invalid
+	 * positions as UNRELATED to everything.
+	 */
+	static byte relation(int pos1, int pos2) {
+		if (!Board.isValidPos(pos1) || !Board.isValidPos(pos2))
+			return UNRELATED;
+		return RELATION[pos1][pos2];
+	}
+
+	/**
+	 * Returns true if the given position is a square in row 1, 3, 5, or
+	 * 7 (in other words, in 1-4, 9-12, 17-20, or 25-28); else false.
+	 */
+	private static boolean isInOddRow(int pos) {
+		return ((pos - 1) / 4) % 2 == 0;
+	}
+
+	/*
+	 * The arithmetic below is only used to fill in the tables above.
+	 */
+
+	private static boolean hasWalkPos(int pos, Direction dir) {
+		switch (dir) {
+		case UP_LEFT:    return (pos >  4) && (pos % 8 != 5);
+		case UP_RIGHT:   return (pos >  4) && (pos % 8 != 4);
+		case DOWN_LEFT:  return (pos < 29) && (pos % 8 != 5);
+		case DOWN_RIGHT: return (pos < 29) && (pos % 8 != 4);
+		default: assert false;
+		}
+		return false;
+	}
+
+	private static boolean hasJumpPos(int pos, Direction dir) {
+		switch (dir) {
+		case UP_LEFT:    return (pos >  8) && (pos % 4 != 1);
+		case UP_RIGHT:   return (pos >  8) && (pos % 4 != 0);
+		case DOWN_LEFT:  return (pos < 25) && (pos % 4 != 1);
+		case DOWN_RIGHT: return (pos < 25) && (pos % 4 != 0);
+		default: assert false;
+		}
+		return false;
+	}
+
+	private static int walkPos(int pos, Direction dir) {
+		switch (dir) {
+		// sorry about this ugliness :( ------- (e.g. pos 9) (e.g. pos 6)
+		case UP_LEFT:    return isInOddRow(pos) ? (pos - 4) : (pos - 5);
+		case UP_RIGHT:   return isInOddRow(pos) ? (pos - 3) : (pos - 4);
+		case DOWN_LEFT:  return isInOddRow(pos) ? (pos + 4) : (pos + 3);
+		case DOWN_RIGHT: return isInOddRow(pos) ? (pos + 5) : (pos + 4);
+		default: assert false;
+		}
+		return 0;
+	}
+
+	private static int jumpPos(int pos, Direction dir) {
+		switch (dir) {
+		case UP_LEFT:    return pos - 9;
+		case UP_RIGHT:   return pos - 7;
+		case DOWN_LEFT:  return pos + 7;
+		case DOWN_RIGHT: return pos + 9;
+		default: assert false;
+		}
+		return 0;
+	}
+}
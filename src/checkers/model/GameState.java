@@ -29,8 +29,11 @@ public class GameState implements Cloneable {
 	private Board board;
 	
 	/**
-	 * Store the last move made.
+	 * Store the last move made, in packed form (or PackedMove.NONE), and
+	 * as a Move, which is only made from the packed one when asked for
+	 * (so it is null until then after a packed move).
 	 */
+	private long lastPackedMove = PackedMove.NONE;
 	private Move lastMove;
 
 	/**
@@ -67,7 +70,42 @@ public class GameState implements Cloneable {
 	 * means playerToMove's opponent has won).
 	 */
 	public boolean gameIsOver() {
-		return board.possibleMoves(playerToMove).size() == 0;
+		return !hasAnyMove();
+	}
+
+	/**
+	 * Returns true if there is any possible move from this state; stops
+	 * at the first one found, without generating any lists.
+	 */
+	public boolean hasAnyMove() {
+		if (isJumping()) {
+			return board.hasAnyJump(jumper);
+		} else {
+			return board.hasAnyMove(playerToMove);
+		}
+	}
+
+	/**
+	 * Returns true if the possible moves from this state are jumps.
+	 */
+	public boolean hasAnyJump() {
+		if (isJumping()) {
+			return board.hasAnyJump(jumper);
+		} else {
+			return board.hasAnyJump(playerToMove);
+		}
+	}
+
+	/**
+	 * Returns the number of possible moves from this state (the size of
+	 * possibleMoves()), without generating any lists.
+	 */
+	public int countMoves() {
+		if (isJumping()) {
+			return board.countJumps(jumper);
+		} else {
+			return board.countMoves(playerToMove);
+		}
 	}
 
 	/**
@@ -81,19 +119,93 @@ public class GameState implements Cloneable {
 	 * Returns a list of the possible moves that can be made from this state.
 	 */
 	public ArrayList<? extends Move> possibleMoves() {
+		long[] moves = cachedMoves();
+		ArrayList<Move> ret = new ArrayList<Move>(moves.length);
+		for (long move : moves)
+			ret.add(PackedMove.toMove(move));
+		return ret;
+	}
+
+	/**
+	 * Returns the possible moves from this state, in {@link PackedMove}
+	 * form, from the calling thread's {@link MoveCache}, so that repeated
+	 * queries about the same position only generate its moves once.  The
+	 * array must not be modified.
+	 */
+	private long[] cachedMoves() {
+		return MoveCache.get().moves(board, playerToMove, jumper);
+	}
+
+	private int[] cachedSingleMoves() {
+		return MoveCache.get().singleMoves(board, playerToMove, jumper);
+	}
+
+	/**
+	 * Generates the possible moves from this state into the given ply of
+	 * the buffer, without allocating; the moves are the same as those
+	 * returned by possibleMoves(), in {@link PackedMove} form.
+	 *
+	 * @return the number of moves generated
+	 */
+	public int generateMoves(MoveBuffer buffer, int ply) {
+		if (isJumping()) {
+			return board.generateJumps(jumper, buffer, ply);
+		} else {
+			return board.generateMoves(playerToMove, buffer, ply);
+		}
+	}
+
+	/**
+	 * Generates just the possible jump moves from this state into the
+	 * given ply of the buffer, replacing whatever was there.
+	 *
+	 * @return the number of moves generated
+	 */
+	public int generateJumps(MoveBuffer buffer, int ply) {
 		if (isJumping()) {
-			return board.possibleJumps(jumper);
+			return board.generateJumps(jumper, buffer, ply);
+		} else {
+			return board.generateJumps(playerToMove, buffer, ply);
+		}
+	}
+
+	/**
+	 * Generates just the walk moves from this state into the given ply of
+	 * the buffer, replacing whatever was there.  Like
+	 * {@link Board#generateWalks}, this assumes that there are no jump
+	 * moves available!
+	 *
+	 * @return the number of moves generated
+	 */
+	public int generateWalks(MoveBuffer buffer, int ply) {
+		if (isJumping()) {
+			buffer.clear(ply);
+			return 0;
 		} else {
-			return board.possibleMoves(playerToMove);
+			return board.generateWalks(playerToMove, buffer, ply);
 		}
 	}
 
+	/**
+	 * Returns true if the given packed walk move is possible from this
+	 * state, without generating any moves.
+	 */
+	public boolean isPossibleWalk(long move) {
+		return !isJumping() && board.isPossibleWalk(playerToMove, move);
+	}
+
+	/**
+	 * Returns the single moves (walks, or individual jumps) that can be
+	 * made from this state, including any jump that starts a different
+	 * order of the same jumps as one of possibleMoves().
+	 */
 	public ArrayList<SingleMove> possibleSingleMoves() {
-		ArrayList<SingleMove> ret = new ArrayList<SingleMove>();
-		for (Move move : possibleMoves())
+		int[] singleMoves = cachedSingleMoves();
+		ArrayList<SingleMove> ret = new ArrayList<SingleMove>(singleMoves.length);
+		for (int singleMove : singleMoves)
 			ret.add(new SingleMove(
-					move.getSequence().get(0),
-					move.getSequence().get(1)));
+					MoveCache.singleMoveStartPos(singleMove),
+					MoveCache.singleMoveEndPos(singleMove)));
 		return ret;
 	}
 
@@ -102,17 +214,11 @@ public class GameState implements Cloneable {
 	 * possible single move.
 	 */
 	public boolean isValidSingleMoveEndPos(int endPos) {
-		boolean ret = false;
-
-		ArrayList<SingleMove> moves = possibleSingleMoves();
-		for (SingleMove singleMove : moves) {
-			if (singleMove.endPos() == endPos) {
-				ret = true;
-				break;
-			}
-		}
+		for (int singleMove : cachedSingleMoves())
+			if (MoveCache.singleMoveEndPos(singleMove) == endPos)
+				return true;
 
-		return ret;
+		return false;
 	}
 
 	/**
@@ -120,46 +226,110 @@ public class GameState implements Cloneable {
 	 * from the current state.
 	 */
 	public boolean isPossibleSingleMove(int startPos, int endPos) {
-		boolean ret = false;
-
-		ArrayList<SingleMove> moves = possibleSingleMoves();
-		for (SingleMove singleMove : moves) {
-			if (singleMove.startPos() == startPos && singleMove.endPos() == endPos) {
-				ret = true;
-				break;
-			}
-		}
+		int wanted = MoveCache.encodeSingleMove(startPos, endPos);
+		for (int singleMove : cachedSingleMoves())
+			if (singleMove == wanted)
+				return true;
 
-		return ret;
+		return false;
 	}
 
 	/**
 	 * Makes the specified move, updating this GameState.
 	 */
 	public void makeMove(Move move) {
-		if (!board.possibleMoves(playerToMove).contains(move))
+		if (!isPossibleMove(move))
 			throw new IllegalArgumentException("impossible move " + move);
-		makeMoveUnchecked(move);
-		lastMove = move;
+		makeMoveUnchecked(move, PackedMove.fromMove(move));
 	}
 
-	public void makeMoveUnchecked(Move move) {
+	/**
+	 * Returns true if the given move can be made from this state; a jump
+	 * sequence matches if it jumps the same pieces as a possible one, in
+	 * any valid order.
+	 */
+	public boolean isPossibleMove(Move move) {
+		long packed = PackedMove.fromMove(move);
+		for (long possible : cachedMoves())
+			if (PackedMove.isSameMove(possible, packed))
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Makes the specified move without checking that it is possible, first
+	 * pushing a record of this state onto the given stack, so that the
+	 * move can be undone by undoMove(UndoStack).
+	 */
+	public void makeMoveUnchecked(Move move, UndoStack undo) {
+		long packed = PackedMove.fromMove(move);
+		undo.push(playerToMove, jumper, lastPackedMove, lastMove, board, packed);
+		makeMoveUnchecked(move, packed);
+	}
+
+	private void makeMoveUnchecked(Move move, long packed) {
 		board.makeMoveUnchecked(move);
 		playerToMove = playerToMove.opponent();
+		jumper = 0;
+		lastPackedMove = packed;
+		lastMove = move;
 	}
-	public void undoMoveUnchecked(Move move) {
-		board.undoMoveUnchecked(move);
-		playerToMove = playerToMove.opponent();
+
+	/**
+	 * Makes the given packed move without checking that it is possible,
+	 * first pushing a record of this state onto the given stack, so that
+	 * the move can be undone by undoMove(UndoStack).
+	 */
+	public void makeMove(long move, UndoStack undo) {
+		undo.push(playerToMove, jumper, lastPackedMove, lastMove, board, move);
+		makeMove(move);
 	}
 
-	public boolean makeSingleMove(int startPos, int nextPos) {
-		ArrayList<? extends Move> possibleMoves = possibleMoves();
+	/**
+	 * Takes back the move at the top of the given stack, restoring this
+	 * state exactly as it was before the move, and returns the move, in
+	 * {@link PackedMove} form.
+	 */
+	public long undoMove(UndoStack undo) {
+		long move = undo.peekMove();
+		int record = undo.pop(board);
+		playerToMove = undo.playerToMove(record);
+		jumper = undo.jumper(record);
+		lastPackedMove = undo.lastPackedMove(record);
+		lastMove = undo.lastMove(record);
+		return move;
+	}
 
-		ArrayList<Integer> moveSequence = new ArrayList<Integer>(2);
-		moveSequence.add(startPos);
-		moveSequence.add(nextPos);
+	/**
+	 * Makes the given packed move (see {@link PackedMove}), without
+	 * checking that it is possible; the fast equivalent of
+	 * makeMoveUnchecked(Move, UndoStack), without the undo record.
+	 */
+	public void makeMove(long move) {
+		board.makeMove(move);
+		playerToMove = playerToMove.opponent();
+		jumper = 0;
+		lastPackedMove = move;
+		lastMove = null;
+	}
+
+	/**
+	 * Takes back the given packed move, which must have been the last move
+	 * made from this state, and must not have been made in the middle of
+	 * a jump sequence (use undoMove(UndoStack) for that).  The move before
+	 * isn't known without an undo record, so afterwards there is no last
+	 * move.
+	 */
+	public void undoMove(long move) {
+		board.undoMove(move);
+		playerToMove = playerToMove.opponent();
+		lastPackedMove = PackedMove.NONE;
+		lastMove = null;
+	}
 
-		if (!isStartOfMoveInList(moveSequence, possibleMoves)) {
+	public boolean makeSingleMove(int startPos, int nextPos) {
+		if (!isPossibleSingleMove(startPos, nextPos)) {
 			throw new IllegalArgumentException("invalid move " + startPos +
 					"-" + nextPos + " player " + playerToMove);
 		}
@@ -173,44 +343,99 @@ public class GameState implements Cloneable {
 		return moveComplete;
 	}
 
+	public Move generateMove(ArrayList<Integer> positionSequence) {
+		return board.generateMove(positionSequence);
+	}
+
 	/**
-	 * Returns whether the given moveSequence constitutes at least part
-	 * of one of the given completeMoves (could match more than one)
+	 * Returns the 64-bit Zobrist key of this state: the board's key,
+	 * combined with whose turn it is and which piece (if any) is in the
+	 * middle of a jump sequence.  It is the same in every run of the
+	 * program, so it can be used to identify positions in caches and
+	 * files.
 	 */
-	private static boolean isStartOfMoveInList(
-			ArrayList<Integer> moveSequence,
-			ArrayList<? extends Move> completeMoves) {
-		for (Move m : completeMoves)
-			if (isStartOfMove(moveSequence, m))
-				return true;
-		return false;
+	public long key() {
+		return board.key()
+				^ (playerToMove == PlayerId.WHITE ? Zobrist.WHITE_TO_MOVE : 0)
+				^ Zobrist.JUMPER[jumper];
 	}
 
 	/**
-	 * Returns whether the given moveSequence constitutes at least part
-	 * of the given completeMove.
+	 * A game state is equivalent to its flipped state (see
+	 * {@link #flipped()}), so every pair of equivalent states can be
+	 * represented by a single, canonical one: the one with black to move.
+	 * This holds the canonical state of some state, along with whether it
+	 * had to be flipped to get it (in which case moves and results have to
+	 * be flipped back, e.g. with {@link PackedMove#flip(long)}).
 	 */
-	private static boolean isStartOfMove(
-			ArrayList<Integer> moveSequence, Move completeMove) {
-		// moveSequence can't be longer than completeMove
-		if (completeMove.getSequence().size() < moveSequence.size())
-			return false;
-
-		// moveSequence has to have at least one move (2 positions)
-		if (moveSequence.size() < 2)
-			return false;
+	public static class Canonical {
+		public final GameState state;
+		public final boolean flipped;
 
-		// moveSequence needs to match at least the first part of completeMove
-		for (int i = 0; i < moveSequence.size(); ++i) {
-			if (completeMove.getSequence().get(i) != moveSequence.get(i))
-				return false;
+		Canonical(GameState state, boolean flipped) {
+			this.state = state;
+			this.flipped = flipped;
 		}
+	}
 
-		return true;
+	/**
+	 * Returns a new GameState with the board flipped (see
+	 * {@link Board#flipped()}) and the other player to move, which plays
+	 * out exactly the same as this one, with the colors swapped.
+	 */
+	public GameState flipped() {
+		return new GameState(playerToMove.opponent(),
+				(jumper == 0) ? 0 : Board.flipPos(jumper),
+				board.flipped());
 	}
 
-	public Move generateMove(ArrayList<Integer> positionSequence) {
-		return board.generateMove(positionSequence);
+	/**
+	 * Returns true if this state is its own canonical state, i.e. black
+	 * is to move.
+	 */
+	public boolean isCanonical() {
+		return playerToMove == PlayerId.BLACK;
+	}
+
+	/**
+	 * Returns the canonical state equivalent to this state (see
+	 * {@link Canonical}); if this state is canonical, the returned state is
+	 * a copy of it.
+	 */
+	public Canonical canonical() {
+		if (isCanonical())
+			return new Canonical(new GameState(this), false);
+		return new Canonical(flipped(), true);
+	}
+
+	/**
+	 * Returns the key (see {@link #key()}) of this state's canonical state,
+	 * without constructing it, so that equivalent states share entries in
+	 * tables keyed by it.
+	 */
+	public long canonicalKey() {
+		if (isCanonical())
+			return key();
+
+		// the flipped state has black to move, so only the board and the
+		// jumper contribute
+		return Zobrist.of(Board.flipMask(board.whitePieces()),
+				Board.flipMask(board.blackPieces()),
+				Board.flipMask(board.kings()))
+				^ Zobrist.JUMPER[(jumper == 0) ? 0 : Board.flipPos(jumper)];
+	}
+
+	/**
+	 * Translates a move between this state and its canonical state, in
+	 * either direction: flips it if this state is not canonical, and
+	 * otherwise returns it as is.
+	 */
+	public long toCanonicalMove(long move) {
+		return isCanonical() ? move : PackedMove.flip(move);
+	}
+
+	public Move toCanonicalMove(Move move) {
+		return isCanonical() ? move : PackedMove.toMove(PackedMove.flip(PackedMove.fromMove(move)));
 	}
 
 	/**
@@ -232,6 +457,8 @@ public class GameState implements Cloneable {
 	 * Returns the last move made in the game.
 	 */
 	public Move getLastMove() {
+		if (lastMove == null && lastPackedMove != PackedMove.NONE)
+			lastMove = PackedMove.toMove(lastPackedMove);
 		return lastMove;
 	}
 	
@@ -242,9 +469,11 @@ public class GameState implements Cloneable {
 	 *         or 0 if there was no last move made.
 	 */
 	public int getLastMoveEndPos() {
-		if (lastMove == null)
-			return 0;
-		return lastMove.endPos();
+		if (lastMove != null)
+			return lastMove.endPos();
+		if (lastPackedMove != PackedMove.NONE)
+			return PackedMove.endPos(lastPackedMove);
+		return 0;
 	}
 
 	@Override
@@ -272,11 +501,8 @@ public class GameState implements Cloneable {
 	}
 
 	public int hashCode() {
-		int hash = 1;
-		hash = hash * 31 + playerToMove.hashCode();
-		hash = hash * 31 + jumper;
-		hash = hash * 31 + board.hashCode();
-		return hash;
+		long key = key();
+		return (int) (key ^ (key >>> 32));
 	}
 
 	public String toString() {
@@ -0,0 +1,92 @@
+package checkers.model;
+
+import java.util.Arrays;
+
+/**
+ * Reusable storage for generated moves, in {@link PackedMove} form, with a
+ * separate list for each ply of a search.
+ * <p>
+ * A search owns one MoveBuffer and passes its current ply to the move
+ * generators (e.g. {@link Board#generateMoves(PlayerId, MoveBuffer, int)}),
+ * which fill in that ply's list without allocating.  The lists for deeper
+ * plies can then be filled in while the moves at shallower plies are still
+ * being iterated over.
+ * <p>
+ * A MoveBuffer is not thread-safe; each search thread needs its own.
+ */
+public class MoveBuffer {
+	/**
+	 * Initial capacity of each ply's list; lists grow if needed, which
+	 * only happens in unusually wide positions.
+	 */
+	private static final int INITIAL_CAPACITY = 32;
+
+	private final long[][] moves;
+	private final int[] sizes;
+
+	/**
+	 * Constructs a buffer with move lists for plies 0 thru maxPly - 1.
+	 */
+	public MoveBuffer(int maxPly) {
+		moves = new long[maxPly][INITIAL_CAPACITY];
+		sizes = new int[maxPly];
+	}
+
+	/**
+	 * Returns the number of plies this buffer has move lists for.
+	 */
+	public int maxPly() {
+		return sizes.length;
+	}
+
+	/**
+	 * Returns the number of moves in the given ply's list.
+	 */
+	public int size(int ply) {
+		return sizes[ply];
+	}
+
+	/**
+	 * Returns the move at the given index in the given ply's list.
+	 */
+	public long get(int ply, int index) {
+		assert index < sizes[ply];
+		return moves[ply][index];
+	}
+
+	/**
+	 * Returns the backing array of the given ply's list; only the first
+	 * size(ply) entries are valid, and the array may be replaced when
+	 * moves are added.
+	 */
+	public long[] moves(int ply) {
+		return moves[ply];
+	}
+
+	/**
+	 * Empties the given ply's list.
+	 */
+	public void clear(int ply) {
+		sizes[ply] = 0;
+	}
+
+	/**
+	 * Appends a move to the given ply's list.
+	 */
+	public void add(int ply, long move) {
+		if (sizes[ply] == moves[ply].length)
+			moves[ply] = Arrays.copyOf(moves[ply], 2 * moves[ply].length);
+		moves[ply][sizes[ply]++] = move;
+	}
+
+	/**
+	 * Returns true if the given ply's list contains the given move.
+	 */
+	public boolean contains(int ply, long move) {
+		long[] list = moves[ply];
+		for (int i = 0; i < sizes[ply]; ++i)
+			if (list[i] == move)
+				return true;
+		return false;
+	}
+}
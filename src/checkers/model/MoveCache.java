@@ -0,0 +1,133 @@
+package checkers.model;
+
+import java.util.ArrayList;
+
+/**
+ * Small per-thread cache of the possible moves from recently seen
+ * positions, so that the many queries made about the same position in one
+ * turn (listing the moves, validating the move that was chosen, checking
+ * single moves from the GUI, and so on) only generate the moves once.
+ * <p>
+ * The cache is direct-mapped by the position's Zobrist key (see
+ * {@link GameState#key()}): each key has one slot, and a new position
+ * simply replaces whatever was in its slot.  Entries are checked against
+ * the complete position, not just the key, so a hit is never wrong.
+ * <p>
+ * Each thread has its own cache (see {@link #get()}), so no locking is
+ * needed.
+ */
+final class MoveCache {
+	/**
+	 * Number of entries; must be a power of 2.
+	 */
+	private static final int SIZE = 64;
+
+	private static final ThreadLocal<MoveCache> CACHES = new ThreadLocal<MoveCache>() {
+		@Override
+		protected MoveCache initialValue() {
+			return new MoveCache();
+		}
+	};
+
+	private final long[] keys = new long[SIZE];
+	private final int[] blackPieces = new int[SIZE];
+	private final int[] whitePieces = new int[SIZE];
+	private final int[] kings = new int[SIZE];
+	private final PlayerId[] playersToMove = new PlayerId[SIZE];
+	private final int[] jumpers = new int[SIZE];
+
+	/**
+	 * The possible moves from each entry's position, in
+	 * {@link PackedMove} form; null if the slot is empty.
+	 */
+	private final long[][] moves = new long[SIZE][];
+
+	/**
+	 * The single moves that can start a move from each entry's position
+	 * (see {@link Board#possibleSingleMoves(PlayerId)}), each encoded as
+	 * (startPos << 8 | endPos); null until they are asked for.
+	 */
+	private final int[][] singleMoves = new int[SIZE][];
+
+	private final MoveBuffer buffer = new MoveBuffer(1);
+
+	private MoveCache() { }
+
+	/**
+	 * Returns the calling thread's cache.
+	 */
+	static MoveCache get() {
+		return CACHES.get();
+	}
+
+	/**
+	 * Returns the possible moves (in {@link PackedMove} form, in the order
+	 * they are generated) of the specified player, who is in the middle of
+	 * a jump sequence with the piece at jumper, if it is not 0.  The array
+	 * belongs to the cache, and must not be modified.
+	 */
+	long[] moves(Board board, PlayerId p, int jumper) {
+		return moves[lookUp(board, p, jumper)];
+	}
+
+	/**
+	 * Returns the single moves that can start one of the possible moves
+	 * of the specified player, encoded as (startPos << 8 | endPos).  The
+	 * array belongs to the cache, and must not be modified.
+	 */
+	int[] singleMoves(Board board, PlayerId p, int jumper) {
+		int slot = lookUp(board, p, jumper);
+		if (singleMoves[slot] == null) {
+			ArrayList<SingleMove> list = (jumper != 0)
+					? board.possibleSingleJumps(jumper)
+					: board.possibleSingleMoves(p);
+
+			int[] encoded = new int[list.size()];
+			for (int i = 0; i < encoded.length; ++i)
+				encoded[i] = encodeSingleMove(list.get(i).startPos(), list.get(i).endPos());
+			singleMoves[slot] = encoded;
+		}
+		return singleMoves[slot];
+	}
+
+	static int encodeSingleMove(int startPos, int endPos) {
+		return (startPos << 8) | endPos;
+	}
+
+	static int singleMoveStartPos(int singleMove) { return singleMove >>> 8; }
+	static int singleMoveEndPos(int singleMove) { return singleMove & 0xFF; }
+
+	/**
+	 * Returns the slot holding the given position, filling it in first
+	 * (and so evicting whatever was there) if it doesn't.
+	 */
+	private int lookUp(Board board, PlayerId p, int jumper) {
+		long key = board.key()
+				^ (p == PlayerId.WHITE ? Zobrist.WHITE_TO_MOVE : 0)
+				^ Zobrist.JUMPER[jumper];
+		int slot = (int) (key ^ (key >>> 32)) & (SIZE - 1);
+
+		if (moves[slot] != null && keys[slot] == key
+				&& blackPieces[slot] == board.blackPieces()
+				&& whitePieces[slot] == board.whitePieces()
+				&& kings[slot] == board.kings()
+				&& playersToMove[slot] == p && jumpers[slot] == jumper)
+			return slot;
+
+		int count = (jumper != 0)
+				? board.generateJumps(jumper, buffer, 0)
+				: board.generateMoves(p, buffer, 0);
+		long[] generated = new long[count];
+		System.arraycopy(buffer.moves(0), 0, generated, 0, count);
+
+		keys[slot] = key;
+		blackPieces[slot] = board.blackPieces();
+		whitePieces[slot] = board.whitePieces();
+		kings[slot] = board.kings();
+		playersToMove[slot] = p;
+		jumpers[slot] = jumper;
+		moves[slot] = generated;
+		singleMoves[slot] = null;
+		return slot;
+	}
+}
@@ -0,0 +1,312 @@
+package checkers.model;
+
+import java.util.ArrayList;
+
+/**
+ * Static helpers for moves packed into a primitive <code>long</code>,
+ * which is how the allocation-free move generators (see {@link MoveBuffer})
+ * represent them.  A packed move carries everything needed to make and
+ * undo it (see {@link Board#makeMove(long)} and
+ * {@link Board#undoMove(long)}), so two packed moves generated from the
+ * same position are the same move if and only if they are equal.
+ * <p>
+ * Layout, from the least significant bit:
+ * <code>
+ *    bits  0-31  mask of the positions captured (jumped over), in the
+ *                same layout as the {@link Board} bitboards; 0 for walks
+ *    bits 32-36  start position - 1
+ *    bits 37-41  end position - 1
+ *    bit  42     set if the move crowns a man
+ *    bits 43-54  which of the captured pieces were kings: bit 43 + i is
+ *                set if the i-th lowest captured position had a king
+ *    bits 55-62  intermediate landing positions of a jump sequence, as a
+ *                mask over the start position's jump lattice (see
+ *                {@link BoardGeometry#LATTICE})
+ *    bit  63     set if the moving piece is a king
+ * </code>
+ * The order of the jumps within a sequence is not stored; {@link #toMove}
+ * recovers it from the captured and landing positions.
+ */
+public final class PackedMove {
+	private static final int START_SHIFT         = 32;
+	private static final int END_SHIFT           = 37;
+	private static final int PROMOTION_SHIFT     = 42;
+	private static final int CAPTURED_KING_SHIFT = 43;
+	private static final int LANDING_SHIFT       = 55;
+	private static final int MOVING_KING_SHIFT   = 63;
+
+	private static final long POS_MASK           = 0x1F;
+	private static final long CAPTURED_KING_MASK = 0xFFF;
+	private static final long LANDING_MASK       = 0xFF;
+
+	/**
+	 * The bits that identify a move as far as the game is concerned.
+	 */
+	private static final long IDENTITY_MASK = 0xFFFFFFFFL
+			| (POS_MASK << START_SHIFT) | (POS_MASK << END_SHIFT);
+
+	/**
+	 * Value that never represents a move (a "walk" from 1 to 1).
+	 */
+	public static final long NONE = 0L;
+
+	private PackedMove() { }
+
+	/**
+	 * Packs a walk move.
+	 */
+	public static long walk(int startPos, int endPos,
+			boolean movingKing, boolean promotion) {
+		assert Board.areWalkable(startPos, endPos);
+		return pack(startPos, endPos, movingKing, promotion, 0, 0, 0);
+	}
+
+	/**
+	 * Packs a complete jump sequence.
+	 *
+	 * @param captured      mask of the positions jumped over
+	 * @param capturedKings mask of the jumped-over positions that had kings
+	 * @param landings      mask of the intermediate landing positions
+	 *                      (i.e. not including the end position, unless
+	 *                      it was landed on more than once)
+	 */
+	public static long jump(int startPos, int endPos, boolean movingKing,
+			boolean promotion, int captured, int capturedKings, int landings) {
+		assert captured != 0;
+		assert (capturedKings & ~captured) == 0;
+		return pack(startPos, endPos, movingKing, promotion,
+				captured, rankKings(captured, capturedKings),
+				latticeMask(startPos, landings));
+	}
+
+	private static long pack(int startPos, int endPos, boolean movingKing,
+			boolean promotion, int captured, int kingRanks, int latticeLandings) {
+		assert Board.isValidPos(startPos) && Board.isValidPos(endPos);
+		return (captured & 0xFFFFFFFFL)
+				| ((long) (startPos - 1) << START_SHIFT)
+				| ((long) (endPos - 1) << END_SHIFT)
+				| (promotion ? 1L << PROMOTION_SHIFT : 0)
+				| ((long) kingRanks << CAPTURED_KING_SHIFT)
+				| ((long) latticeLandings << LANDING_SHIFT)
+				| (movingKing ? 1L << MOVING_KING_SHIFT : 0);
+	}
+
+	public static int startPos(long move) {
+		return (int) ((move >>> START_SHIFT) & POS_MASK) + 1;
+	}
+
+	public static int endPos(long move) {
+		return (int) ((move >>> END_SHIFT) & POS_MASK) + 1;
+	}
+
+	/**
+	 * Returns the mask of the positions jumped over by the given move.
+	 */
+	public static int captured(long move) {
+		return (int) move;
+	}
+
+	/**
+	 * Returns the mask of the positions jumped over by the given move that
+	 * had kings on them.
+	 */
+	public static int capturedKings(long move) {
+		int ranks = (int) ((move >>> CAPTURED_KING_SHIFT) & CAPTURED_KING_MASK);
+		int kings = 0;
+		for (int captured = captured(move); ranks != 0; captured &= captured - 1) {
+			if ((ranks & 1) != 0)
+				kings |= captured & -captured;
+			ranks >>>= 1;
+		}
+		return kings;
+	}
+
+	/**
+	 * Returns the mask of the intermediate positions landed on by the
+	 * given jump sequence.
+	 */
+	public static int landings(long move) {
+		int lattice = (int) ((move >>> LANDING_SHIFT) & LANDING_MASK);
+		int startPos = startPos(move);
+		int landings = 0;
+		for (; lattice != 0; lattice &= lattice - 1) {
+			int index = Integer.numberOfTrailingZeros(lattice);
+			landings |= Board.bit(BoardGeometry.LATTICE[startPos][index]);
+		}
+		return landings;
+	}
+
+	public static boolean isJump(long move) {
+		return captured(move) != 0;
+	}
+
+	public static boolean isPromotion(long move) {
+		return (move & (1L << PROMOTION_SHIFT)) != 0;
+	}
+
+	public static boolean movingKing(long move) {
+		return move < 0;
+	}
+
+	/**
+	 * Returns true if the two given moves (from the same position) start
+	 * and end in the same place and capture the same pieces; jump
+	 * sequences that only take the pieces in a different order are then
+	 * the same move.
+	 */
+	public static boolean isSameMove(long move1, long move2) {
+		return ((move1 ^ move2) & IDENTITY_MASK) == 0;
+	}
+
+	/**
+	 * Returns the number of pieces captured by the given move.
+	 */
+	public static int captureCount(long move) {
+		return Integer.bitCount(captured(move));
+	}
+
+	/**
+	 * Packs the given Move object.
+	 */
+	public static long fromMove(Move move) {
+		ArrayList<Integer> sequence = move.getSequence();
+		int startPos = move.startPos();
+		int endPos = move.endPos();
+		boolean promotion = !move.movingKing()
+				&& (Board.posIsInBlacksKingRow(endPos)
+					|| Board.posIsInWhitesKingRow(endPos));
+
+		if (!move.isJump())
+			return walk(startPos, endPos, move.movingKing(), promotion);
+
+		ArrayList<Boolean> jumpedKings = ((Jump) move).jumpedKings();
+		int captured = 0;
+		int capturedKings = 0;
+		int landings = 0;
+		for (int i = 1; i < sequence.size(); ++i) {
+			int jumped = Board.bit(Board.jumpOverPos(
+					sequence.get(i - 1), sequence.get(i)));
+			captured |= jumped;
+			if (jumpedKings.get(i - 1))
+				capturedKings |= jumped;
+			if (i < sequence.size() - 1)
+				landings |= Board.bit(sequence.get(i));
+		}
+
+		return jump(startPos, endPos, move.movingKing(), promotion,
+				captured, capturedKings, landings);
+	}
+
+	/**
+	 * Unpacks the given move into a Move object, for the user interfaces
+	 * and anything else that works with Move objects.
+	 */
+	public static Move toMove(long move) {
+		int startPos = startPos(move);
+
+		if (!isJump(move))
+			return new Walk(startPos, endPos(move), movingKing(move));
+
+		int[] path = new int[captureCount(move) + 1];
+		path[0] = startPos;
+		boolean found = findPath(path, 1, captured(move), landings(move), endPos(move));
+		assert found : "no jump path for " + toString(move);
+
+		int capturedKings = capturedKings(move);
+		Jump jump = null;
+		for (int i = 1; i < path.length; ++i) {
+			boolean jumpedKing = (capturedKings
+					& Board.bit(Board.jumpOverPos(path[i - 1], path[i]))) != 0;
+			if (jump == null)
+				jump = new Jump(path[0], path[1], movingKing(move), jumpedKing);
+			else
+				jump.jumpAgain(path[i], jumpedKing);
+		}
+		return jump;
+	}
+
+	/**
+	 * Depth-first search for a sequence of jumps that jumps over exactly
+	 * the remaining captured positions, landing only on the given landing
+	 * positions until it finishes on endPos.  Fills in path from the
+	 * given index onwards.
+	 */
+	private static boolean findPath(int[] path, int index,
+			int remaining, int landings, int endPos) {
+		int pos = path[index - 1];
+		if (remaining == 0)
+			return pos == endPos;
+
+		for (int d = 0; d < 4; ++d) {
+			int landPos = BoardGeometry.JUMP[pos][d];
+			if (landPos == 0)
+				continue;
+
+			int jumped = Board.bit(BoardGeometry.JUMPED[pos][d]);
+			int left = remaining & ~jumped;
+			boolean canLand = (left == 0) ? landPos == endPos
+					: (landings & Board.bit(landPos)) != 0;
+			if ((remaining & jumped) != 0 && canLand) {
+				path[index] = landPos;
+				if (findPath(path, index + 1, left, landings, endPos))
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Compresses a mask of captured kings into one bit per captured piece.
+	 */
+	private static int rankKings(int captured, int capturedKings) {
+		int ranks = 0;
+		int rank = 0;
+		for (; captured != 0; captured &= captured - 1, ++rank)
+			if ((capturedKings & captured & -captured) != 0)
+				ranks |= 1 << rank;
+		assert rank <= 12;
+		return ranks;
+	}
+
+	/**
+	 * Compresses a mask of landing positions into a mask over the start
+	 * position's jump lattice.
+	 */
+	private static int latticeMask(int startPos, int landings) {
+		int lattice = 0;
+		for (; landings != 0; landings &= landings - 1) {
+			int landPos = Integer.numberOfTrailingZeros(landings) + 1;
+			int index = BoardGeometry.LATTICE_INDEX[startPos][landPos];
+			assert index >= 0;
+			lattice |= 1 << index;
+		}
+		return lattice;
+	}
+
+	/**
+	 * Returns the given move as it would be made on the flipped board (see
+	 * {@link Board#flipped()}), by the other player.
+	 */
+	public static long flip(long move) {
+		int startPos = Board.flipPos(startPos(move));
+		int endPos = Board.flipPos(endPos(move));
+
+		if (!isJump(move))
+			return walk(startPos, endPos, movingKing(move), isPromotion(move));
+
+		return jump(startPos, endPos, movingKing(move), isPromotion(move),
+				Board.flipMask(captured(move)),
+				Board.flipMask(capturedKings(move)),
+				Board.flipMask(landings(move)));
+	}
+
+	/**
+	 * Returns the move in the same notation as {@link Move#toString()}.
+	 */
+	public static String toString(long move) {
+		if (move == NONE)
+			return "none";
+		return toMove(move).toString();
+	}
+}
@@ -0,0 +1,138 @@
+package checkers.model;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Multi-threaded version of {@link Perft}, which splits the game tree into
+ * fork/join tasks at the root and at the next ply, and counts each of the
+ * resulting subtrees with a single-threaded Perft.  Each task works on its
+ * own copy of the GameState, so this also exercises making and undoing
+ * moves on many Boards at once.
+ * <p>
+ * If a hash table is used, each worker thread has its own, so the total
+ * memory used is the given size times the number of threads.
+ */
+public class ParallelPerft {
+	/**
+	 * Number of plies, starting from the root, at which each move gets its
+	 * own task.
+	 */
+	private static final int SPLIT_PLIES = 2;
+
+	private final ForkJoinPool pool;
+
+	private final ThreadLocal<Perft> perfts;
+
+	/**
+	 * Constructs a ParallelPerft that uses the given number of threads,
+	 * each with a hash table of the given size in megabytes (or without
+	 * one, if the size is 0).
+	 */
+	public ParallelPerft(int threads, final int hashMegabytes) {
+		if (hashMegabytes < 0)
+			throw new IllegalArgumentException("negative hash table size");
+
+		pool = new ForkJoinPool(threads);
+		perfts = new ThreadLocal<Perft>() {
+			@Override
+			protected Perft initialValue() {
+				return new Perft(hashMegabytes);
+			}
+		};
+	}
+
+	/**
+	 * Returns the number of threads used.
+	 */
+	public int getThreads() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Same as {@link Perft#count(GameState, int)}, but multi-threaded.
+	 */
+	public long count(GameState state, int depth) {
+		checkArguments(state, depth);
+		return pool.invoke(new CountTask(new GameState(state), depth, SPLIT_PLIES));
+	}
+
+	/**
+	 * Same as {@link Perft#divide(GameState, int)}, but multi-threaded.
+	 */
+	public long[] divide(GameState state, int depth) {
+		if (depth < 1)
+			throw new IllegalArgumentException("can't divide at depth " + depth);
+		checkArguments(state, depth);
+
+		CountTask[] tasks = splitMoves(state, depth, SPLIT_PLIES);
+		for (CountTask task : tasks)
+			pool.execute(task);
+
+		long[] counts = new long[tasks.length];
+		for (int i = 0; i < tasks.length; ++i)
+			counts[i] = tasks[i].join();
+		return counts;
+	}
+
+	/**
+	 * Stops the worker threads; this can't be used any more afterwards.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	private static void checkArguments(GameState state, int depth) {
+		if (state.isJumping())
+			throw new IllegalArgumentException("can't perft mid-jump");
+		if (depth < 0)
+			throw new IllegalArgumentException("negative depth " + depth);
+	}
+
+	/**
+	 * Returns a task for each of the possible moves from the given state,
+	 * each counting the subtree below that move on its own copy of the
+	 * state, in the order of {@link GameState#generateMoves}.
+	 */
+	private CountTask[] splitMoves(GameState state, int depth, int splitPlies) {
+		MoveBuffer moves = new MoveBuffer(1);
+		int moveCount = state.generateMoves(moves, 0);
+
+		CountTask[] tasks = new CountTask[moveCount];
+		for (int i = 0; i < moveCount; ++i) {
+			GameState child = new GameState(state);
+			child.makeMove(moves.get(0, i));
+			tasks[i] = new CountTask(child, depth - 1, splitPlies - 1);
+		}
+		return tasks;
+	}
+
+	private class CountTask extends RecursiveTask<Long> {
+		private static final long serialVersionUID = 1L;
+
+		private final GameState state;
+		private final int depth;
+		private final int splitPlies;
+
+		CountTask(GameState state, int depth, int splitPlies) {
+			this.state = state;
+			this.depth = depth;
+			this.splitPlies = splitPlies;
+		}
+
+		@Override
+		protected Long compute() {
+			// small subtrees aren't worth splitting
+			if (splitPlies <= 0 || depth <= 2)
+				return perfts.get().count(state, depth);
+
+			CountTask[] tasks = splitMoves(state, depth, splitPlies);
+			invokeAll(tasks);
+
+			long nodes = 0;
+			for (CountTask task : tasks)
+				nodes += task.join();
+			return nodes;
+		}
+	}
+}
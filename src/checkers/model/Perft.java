@@ -0,0 +1,168 @@
+package checkers.model;
+
+/**
+ * Performance test ("perft") of the move generator: counts the leaf nodes
+ * of the complete game tree to a given depth.  The counts from the start
+ * of a game are well known (7, 49, 302, 1469, 7361, ...), so this checks
+ * that the move generator is correct, and timing it measures how fast the
+ * generator and make/undo are.
+ * <p>
+ * At the last ply, moves are just counted ("bulk counting") rather than
+ * made.  Optionally, a hash table of subtree counts lets repeated
+ * positions (transpositions) be counted only once.
+ * <p>
+ * A Perft object is not thread-safe; each thread needs its own.
+ */
+public class Perft {
+	/**
+	 * Bytes taken by each hash table entry.
+	 */
+	public static final int HASH_ENTRY_BYTES = 8 + 8 + 1;
+
+	private MoveBuffer buffer;
+
+	/**
+	 * Hash table of subtree counts, indexed by the low bits of the state's
+	 * key; an entry is only valid if both the key and the depth match.
+	 * All null if there is no hash table.
+	 */
+	private final long[] hashKeys;
+	private final long[] hashCounts;
+	private final byte[] hashDepths;
+	private final int hashMask;
+
+	private long hashHits;
+	private long hashProbes;
+
+	/**
+	 * Constructs a Perft without a hash table.
+	 */
+	public Perft() {
+		this(0);
+	}
+
+	/**
+	 * Constructs a Perft with a hash table of (at most) the given size in
+	 * megabytes, or without one if the size is 0.
+	 */
+	public Perft(int hashMegabytes) {
+		if (hashMegabytes < 0)
+			throw new IllegalArgumentException("negative hash table size");
+
+		buffer = new MoveBuffer(32);
+
+		long maxEntries = ((long) hashMegabytes << 20) / HASH_ENTRY_BYTES;
+		if (maxEntries == 0) {
+			hashKeys = null;
+			hashCounts = null;
+			hashDepths = null;
+			hashMask = 0;
+		} else {
+			int entries = Integer.highestOneBit((int) Math.min(maxEntries, 1 << 30));
+			hashKeys = new long[entries];
+			hashCounts = new long[entries];
+			hashDepths = new byte[entries];
+			hashMask = entries - 1;
+		}
+	}
+
+	/**
+	 * Returns the number of leaf nodes of the game tree of the given
+	 * depth, from the given state, which must not be in the middle of a
+	 * jump sequence.  The state is left as it was.
+	 */
+	public long count(GameState state, int depth) {
+		if (state.isJumping())
+			throw new IllegalArgumentException("can't perft mid-jump");
+		if (depth < 0)
+			throw new IllegalArgumentException("negative depth " + depth);
+		if (depth > buffer.maxPly())
+			buffer = new MoveBuffer(depth);
+
+		return count(state, depth, 0);
+	}
+
+	/**
+	 * Returns the leaf node count below each of the possible moves from
+	 * the given state (the "divide" breakdown, for tracking down which
+	 * move a wrong count comes from), in the same order as the moves
+	 * generated by {@link GameState#generateMoves(MoveBuffer, int)}.
+	 *
+	 * @param depth depth of the whole tree, including the moves from the
+	 *              given state; must be at least 1
+	 */
+	public long[] divide(GameState state, int depth) {
+		if (depth < 1)
+			throw new IllegalArgumentException("can't divide at depth " + depth);
+		if (state.isJumping())
+			throw new IllegalArgumentException("can't perft mid-jump");
+		if (depth > buffer.maxPly())
+			buffer = new MoveBuffer(depth);
+
+		int moveCount = state.generateMoves(buffer, 0);
+		long[] counts = new long[moveCount];
+		for (int i = 0; i < moveCount; ++i) {
+			long move = buffer.get(0, i);
+			state.makeMove(move);
+			counts[i] = count(state, depth - 1, 1);
+			state.undoMove(move);
+		}
+		return counts;
+	}
+
+	private long count(GameState state, int depth, int ply) {
+		if (depth == 0)
+			return 1;
+		if (depth == 1)
+			return state.countMoves();
+
+		long key = 0;
+		int index = 0;
+		if (hashKeys != null) {
+			key = state.key();
+			index = (int) (key ^ (key >>> 32)) & hashMask;
+			++hashProbes;
+			if (hashKeys[index] == key && hashDepths[index] == depth) {
+				++hashHits;
+				return hashCounts[index];
+			}
+		}
+
+		long nodes = 0;
+		int moveCount = state.generateMoves(buffer, ply);
+		for (int i = 0; i < moveCount; ++i) {
+			long move = buffer.get(ply, i);
+			state.makeMove(move);
+			nodes += count(state, depth - 1, ply + 1);
+			state.undoMove(move);
+		}
+
+		if (hashKeys != null) {
+			// always replace
+			hashKeys[index] = key;
+			hashDepths[index] = (byte) depth;
+			hashCounts[index] = nodes;
+		}
+
+		return nodes;
+	}
+
+	/**
+	 * Returns true if this Perft has a hash table.
+	 */
+	public boolean isHashed() {
+		return hashKeys != null;
+	}
+
+	/**
+	 * Returns the number of times the hash table was looked in, and the
+	 * number of those that found the count, since construction.
+	 */
+	public long getHashProbes() {
+		return hashProbes;
+	}
+
+	public long getHashHits() {
+		return hashHits;
+	}
+}
@@ -0,0 +1,217 @@
+package checkers.model;
+
+import java.util.SplittableRandom;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Generates random game states that meet some constraints (the number of
+ * pieces, men and kings each player has, whose turn it is, and whether
+ * they have a jump to make), for benchmarks, testing and building data
+ * sets.
+ * <p>
+ * Each state is found by playing random moves from the start of a game,
+ * and choosing one of the states along the way that meet the constraints,
+ * each as likely as the others (so states from late in a game are as
+ * common as those from early on), so every state is one that can really
+ * happen in a game.  The i-th state generated depends
+ * only on the seed and on i, so the same seed always gives the same
+ * states, in the same order, however many threads generate them.
+ */
+public class PositionGenerator {
+	/**
+	 * How many games to try playing for each state before giving up on
+	 * the constraints.
+	 */
+	private static final int MAX_GAMES = 10000;
+
+	/**
+	 * Games this long are given up on, as neither player is making
+	 * progress.
+	 */
+	private static final int MAX_PLIES = 300;
+
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	private final long seed;
+
+	private int minBlackPieces = 1;
+	private int maxBlackPieces = 12;
+	private int minWhitePieces = 1;
+	private int maxWhitePieces = 12;
+	private int minBlackMen = 0;
+	private int maxBlackMen = 12;
+	private int minWhiteMen = 0;
+	private int maxWhiteMen = 12;
+	private int minBlackKings = 0;
+	private int maxBlackKings = 12;
+	private int minWhiteKings = 0;
+	private int maxWhiteKings = 12;
+	private PlayerId playerToMove = null;
+	private Boolean capturePending = null;
+
+	/**
+	 * Constructs a generator with the given seed, and no constraints
+	 * other than that the game is not over.
+	 */
+	public PositionGenerator(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Constrains the number of black pieces (men and kings) to between min
+	 * and max, inclusive.
+	 */
+	public void setBlackPieces(int min, int max) {
+		checkRange(min, max, 1);
+		minBlackPieces = min;
+		maxBlackPieces = max;
+	}
+
+	/**
+	 * Constrains the number of white pieces (men and kings) to between min
+	 * and max, inclusive.
+	 */
+	public void setWhitePieces(int min, int max) {
+		checkRange(min, max, 1);
+		minWhitePieces = min;
+		maxWhitePieces = max;
+	}
+
+	/**
+	 * Constrains the number of black men to between min and max,
+	 * inclusive.
+	 */
+	public void setBlackMen(int min, int max) {
+		checkRange(min, max, 0);
+		minBlackMen = min;
+		maxBlackMen = max;
+	}
+
+	/**
+	 * Constrains the number of white men to between min and max,
+	 * inclusive.
+	 */
+	public void setWhiteMen(int min, int max) {
+		checkRange(min, max, 0);
+		minWhiteMen = min;
+		maxWhiteMen = max;
+	}
+
+	/**
+	 * Constrains the number of black kings to between min and max,
+	 * inclusive.
+	 */
+	public void setBlackKings(int min, int max) {
+		checkRange(min, max, 0);
+		minBlackKings = min;
+		maxBlackKings = max;
+	}
+
+	/**
+	 * Constrains the number of white kings to between min and max,
+	 * inclusive.
+	 */
+	public void setWhiteKings(int min, int max) {
+		checkRange(min, max, 0);
+		minWhiteKings = min;
+		maxWhiteKings = max;
+	}
+
+	/**
+	 * Constrains whose turn it is, or lifts the constraint if null.
+	 */
+	public void setPlayerToMove(PlayerId playerToMove) {
+		this.playerToMove = playerToMove;
+	}
+
+	/**
+	 * Constrains whether the player to move must make a jump, or lifts the
+	 * constraint if null.
+	 */
+	public void setCapturePending(Boolean capturePending) {
+		this.capturePending = capturePending;
+	}
+
+	private static void checkRange(int min, int max, int lowest) {
+		if (min < lowest || max > 12 || min > max)
+			throw new IllegalArgumentException(
+					"bad piece count range " + min + " to " + max);
+	}
+
+	/**
+	 * Returns true if the given state meets all the constraints (and the
+	 * game is not over).
+	 */
+	public boolean matches(GameState state) {
+		Board board = state.getBoard();
+		int black = board.piecesCountOf(PlayerId.BLACK);
+		int white = board.piecesCountOf(PlayerId.WHITE);
+		int blackKings = board.blackKings();
+		int whiteKings = board.whiteKings();
+
+		return black >= minBlackPieces && black <= maxBlackPieces
+				&& white >= minWhitePieces && white <= maxWhitePieces
+				&& black - blackKings >= minBlackMen && black - blackKings <= maxBlackMen
+				&& white - whiteKings >= minWhiteMen && white - whiteKings <= maxWhiteMen
+				&& blackKings >= minBlackKings && blackKings <= maxBlackKings
+				&& whiteKings >= minWhiteKings && whiteKings <= maxWhiteKings
+				&& (playerToMove == null || state.playerToMove() == playerToMove)
+				&& (capturePending == null || state.hasAnyJump() == capturePending)
+				&& state.hasAnyMove();
+	}
+
+	/**
+	 * Returns the index-th state from this generator.
+	 *
+	 * @throws IllegalStateException if no state meeting the constraints
+	 *         was found (e.g. because they can't be met)
+	 */
+	public GameState generate(long index) {
+		SplittableRandom random = new SplittableRandom(seed + index * GOLDEN_GAMMA);
+		MoveBuffer buffer = new MoveBuffer(1);
+
+		for (int game = 0; game < MAX_GAMES; ++game) {
+			GameState state = new GameState();
+
+			// the matching states along the way are reservoir sampled: the
+			// n-th replaces the one chosen so far with probability 1/n
+			GameState chosen = null;
+			int matching = 0;
+			for (int ply = 0; ply < MAX_PLIES; ++ply) {
+				if (matches(state) && random.nextInt(++matching) == 0)
+					chosen = new GameState(state);
+
+				int count = state.generateMoves(buffer, 0);
+				if (count == 0)
+					break; // game over
+
+				state.makeMove(buffer.get(0, random.nextInt(count)));
+
+				// pieces never come back, and nor do men (once taken or
+				// crowned), so once there are too few, the constraints
+				// can't be met any more in this game
+				Board board = state.getBoard();
+				if (board.piecesCountOf(PlayerId.BLACK) < minBlackPieces
+						|| board.piecesCountOf(PlayerId.WHITE) < minWhitePieces
+						|| board.blackMen() < minBlackMen
+						|| board.whiteMen() < minWhiteMen)
+					break;
+			}
+
+			if (chosen != null)
+				return chosen;
+		}
+
+		throw new IllegalStateException("no state meeting the constraints found in "
+				+ MAX_GAMES + " random games");
+	}
+
+	/**
+	 * Returns an ordered stream of states 0 thru count - 1 of this
+	 * generator, which are generated in parallel.
+	 */
+	public Stream<GameState> stream(long count) {
+		return LongStream.range(0, count).parallel().mapToObj(this::generate);
+	}
+}
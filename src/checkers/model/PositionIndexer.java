@@ -0,0 +1,302 @@
+package checkers.model;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Perfect hash of the boards with a given material signature (numbers of
+ * black men, black kings, white men and white kings): {@link #rank(Board)}
+ * maps each such board to a distinct index in [0, {@link #size()}), and
+ * {@link #unrank(long)} maps it back, so facts about positions can be kept
+ * in flat arrays or files instead of hash tables.  Whose turn it is is not
+ * part of the index; e.g. keep one array for each player to move.
+ * <p>
+ * Men can never stand on the row where they would be crowned (black men
+ * on 29-32, white men on 1-4), so those boards are not counted.  The index
+ * is built up as a mixed-radix number from the combinatorial number system
+ * ranks of:
+ * <ol>
+ * <li>the black men in black's back row (1-4), as the most significant
+ *     "digit", by splitting the index range into one sub-slice for each
+ *     number of them;
+ * <li>the rest of the black men, in 5-28;
+ * <li>the white men, in 5-32 minus the squares taken by black men;
+ * <li>the black kings, on the squares left over; and
+ * <li>the white kings, on the squares left after that.
+ * </ol>
+ * Ranking takes time proportional to the number of pieces, and unranking
+ * to the number of squares, as it looks at each square once for each
+ * kind of piece.
+ */
+public class PositionIndexer implements Iterable<Board> {
+	private static final int BLACKS_BACK_ROW = 0x0000000F;
+	private static final int MIDDLE_ROWS     = 0x0FFFFFF0;
+	private static final int ALL_SQUARES     = 0xFFFFFFFF;
+
+	/**
+	 * BINOMIAL[n][k] is n choose k, for 0 <= n, k <= 32.
+	 */
+	private static final long[][] BINOMIAL = new long[33][33];
+
+	static {
+		for (int n = 0; n <= 32; ++n) {
+			BINOMIAL[n][0] = 1;
+			for (int k = 1; k <= n; ++k)
+				BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+		}
+	}
+
+	private final int blackMen;
+	private final int blackKings;
+	private final int whiteMen;
+	private final int whiteKings;
+
+	/**
+	 * The sub-slice for k black men in black's back row starts at index
+	 * offsets[k], and has sizes[k] boards in it.
+	 */
+	private final long[] offsets = new long[5];
+	private final long[] sizes = new long[5];
+
+	/**
+	 * Number of ways to place the kings, which is the same for every
+	 * placement of the men.
+	 */
+	private final long kingPlacements;
+
+	private final long size;
+
+	/**
+	 * Constructs an indexer for boards with exactly the given material.
+	 *
+	 * @throws IllegalArgumentException if no board has that material, or
+	 *         if there are too many boards to index with a long
+	 */
+	public PositionIndexer(int blackMen, int blackKings, int whiteMen, int whiteKings) {
+		if (blackMen < 0 || blackKings < 0 || whiteMen < 0 || whiteKings < 0
+				|| blackMen + blackKings > 12 || whiteMen + whiteKings > 12
+				|| blackMen > 28 || whiteMen > 28)
+			throw new IllegalArgumentException("impossible material "
+					+ signatureString(blackMen, blackKings, whiteMen, whiteKings));
+
+		this.blackMen = blackMen;
+		this.blackKings = blackKings;
+		this.whiteMen = whiteMen;
+		this.whiteKings = whiteKings;
+
+		int free = 32 - blackMen - whiteMen;
+		try {
+			kingPlacements = Math.multiplyExact(BINOMIAL[free][blackKings],
+					BINOMIAL[free - blackKings][whiteKings]);
+
+			long total = 0;
+			for (int k = 0; k <= 4; ++k) {
+				offsets[k] = total;
+				if (k <= blackMen && blackMen - k <= 24) {
+					int middle = blackMen - k;
+					sizes[k] = Math.multiplyExact(Math.multiplyExact(
+							BINOMIAL[4][k] * BINOMIAL[24][middle],
+							BINOMIAL[28 - middle][whiteMen]), kingPlacements);
+					total = Math.addExact(total, sizes[k]);
+				}
+			}
+			size = total;
+		} catch (ArithmeticException e) {
+			throw new IllegalArgumentException("too many boards to index with "
+					+ signatureString(blackMen, blackKings, whiteMen, whiteKings));
+		}
+	}
+
+	/**
+	 * Constructs an indexer for boards with the same material as the given
+	 * board.
+	 */
+	public static PositionIndexer forBoard(Board board) {
+		return new PositionIndexer(board.blackMen(), board.blackKings(),
+				board.whiteMen(), board.whiteKings());
+	}
+
+	/**
+	 * Returns the material signatures with the given total number of
+	 * pieces, in which each player has at least one piece, in a fixed
+	 * order.  Together with the indexes of each, these enumerate every
+	 * board with that many pieces.
+	 */
+	public static ArrayList<int[]> signatures(int pieces) {
+		ArrayList<int[]> ret = new ArrayList<int[]>();
+		for (int black = 1; black <= Math.min(12, pieces - 1); ++black) {
+			int white = pieces - black;
+			if (white > 12)
+				continue;
+			for (int blackKings = 0; blackKings <= black; ++blackKings)
+				for (int whiteKings = 0; whiteKings <= white; ++whiteKings)
+					ret.add(new int[] { black - blackKings, blackKings,
+							white - whiteKings, whiteKings });
+		}
+		return ret;
+	}
+
+	public int blackMen()   { return blackMen; }
+	public int blackKings() { return blackKings; }
+	public int whiteMen()   { return whiteMen; }
+	public int whiteKings() { return whiteKings; }
+
+	/**
+	 * Returns the number of boards with this material, so that indexes
+	 * range from 0 to size() - 1.
+	 */
+	public long size() {
+		return size;
+	}
+
+	/**
+	 * Returns the index of the given board, which must have this
+	 * indexer's material.
+	 */
+	public long rank(Board board) {
+		int black = board.blackPieces();
+		int white = board.whitePieces();
+		int kings = board.kings();
+		int bm = black & ~kings;
+		int wm = white & ~kings;
+
+		if (Integer.bitCount(bm) != blackMen || Integer.bitCount(black & kings) != blackKings
+				|| Integer.bitCount(wm) != whiteMen || Integer.bitCount(white & kings) != whiteKings)
+			throw new IllegalArgumentException("board does not have material " + this);
+		if ((bm & Board.BLACKS_KING_ROW) != 0 || (wm & Board.WHITES_KING_ROW) != 0)
+			throw new IllegalArgumentException("man on its king row");
+
+		int back = bm & BLACKS_BACK_ROW;
+		int k = Integer.bitCount(back);
+		int middle = blackMen - k;
+		int free = ~(bm | wm);
+
+		long index = rankSubset(back, BLACKS_BACK_ROW);
+		index = index * BINOMIAL[24][middle] + rankSubset(bm & MIDDLE_ROWS, MIDDLE_ROWS);
+		index = index * BINOMIAL[28 - middle][whiteMen] + rankSubset(wm, ~(bm | Board.WHITES_KING_ROW));
+		index = index * kingPlacements
+				+ rankSubset(black & kings, free) * BINOMIAL[32 - blackMen - whiteMen - blackKings][whiteKings]
+				+ rankSubset(white & kings, free & ~black);
+
+		return offsets[k] + index;
+	}
+
+	/**
+	 * Returns the board with the given index.
+	 */
+	public Board unrank(long index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("index " + index + " of " + size);
+
+		int k = 4;
+		while (sizes[k] == 0 || index < offsets[k])
+			--k;
+		index -= offsets[k];
+		int middle = blackMen - k;
+
+		long whiteKingPlacements = BINOMIAL[32 - blackMen - whiteMen - blackKings][whiteKings];
+		long kingIndex = index % kingPlacements;
+		index /= kingPlacements;
+		long whiteMenCount = BINOMIAL[28 - middle][whiteMen];
+		long whiteIndex = index % whiteMenCount;
+		index /= whiteMenCount;
+		long middleIndex = index % BINOMIAL[24][middle];
+		long backIndex = index / BINOMIAL[24][middle];
+
+		int bm = unrankSubset(backIndex, k, BLACKS_BACK_ROW)
+				| unrankSubset(middleIndex, middle, MIDDLE_ROWS);
+		int wm = unrankSubset(whiteIndex, whiteMen, ~(bm | Board.WHITES_KING_ROW));
+		int free = ~(bm | wm);
+		int bk = unrankSubset(kingIndex / whiteKingPlacements, blackKings, free);
+		int wk = unrankSubset(kingIndex % whiteKingPlacements, whiteKings, free & ~bk);
+
+		return new Board(bm | bk, wm | wk, bk | wk);
+	}
+
+	/**
+	 * Iterates over all the boards with this material, in index order.
+	 */
+	public Iterator<Board> iterator() {
+		return iterator(0, size);
+	}
+
+	/**
+	 * Iterates over the boards with indexes from (inclusive) thru to
+	 * (exclusive), in index order; e.g. to split up the work of going
+	 * through a large slice.
+	 */
+	public Iterator<Board> iterator(final long from, final long to) {
+		if (from < 0 || from > to || to > size)
+			throw new IndexOutOfBoundsException("range " + from + " to " + to + " of " + size);
+
+		return new Iterator<Board>() {
+			private long next = from;
+
+			public boolean hasNext() {
+				return next < to;
+			}
+
+			public Board next() {
+				if (next >= to)
+					throw new NoSuchElementException();
+				return unrank(next++);
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Returns the combinatorial number system rank of the given subset of
+	 * the given universe of squares (both as bitboard masks), where each
+	 * square is numbered by how many squares of the universe come before
+	 * it.
+	 */
+	private static long rankSubset(int subset, int universe) {
+		assert (subset & ~universe) == 0;
+		long index = 0;
+		int i = 0;
+		for (; subset != 0; subset &= subset - 1) {
+			int lowest = subset & -subset;
+			index += BINOMIAL[Integer.bitCount(universe & (lowest - 1))][++i];
+		}
+		return index;
+	}
+
+	/**
+	 * Inverse of rankSubset: returns the subset of the given size of the
+	 * given universe that has the given rank.
+	 */
+	private static int unrankSubset(long index, int subsetSize, int universe) {
+		int subset = 0;
+		int n = Integer.bitCount(universe);
+		int square = 0;
+		for (int i = subsetSize; i > 0; --i) {
+			// the largest remaining element is the largest n with
+			// (n choose i) <= index; the squares are walked down from the
+			// top along with n, so square is always the n-th of the universe
+			do {
+				--n;
+				square = Integer.highestOneBit(universe);
+				universe &= ~square;
+			} while (BINOMIAL[n][i] > index);
+			index -= BINOMIAL[n][i];
+			subset |= square;
+		}
+		assert index == 0;
+		return subset;
+	}
+
+	private static String signatureString(int blackMen, int blackKings,
+			int whiteMen, int whiteKings) {
+		return blackMen + "+" + blackKings + "K v " + whiteMen + "+" + whiteKings + "K";
+	}
+
+	@Override
+	public String toString() {
+		return signatureString(blackMen, blackKings, whiteMen, whiteKings);
+	}
+}
@@ -0,0 +1,132 @@
+package checkers.model;
+
+/**
+ * Lazily generates the possible moves from each node of a search, in
+ * stages, so that a search that stops early (e.g. on an alpha-beta
+ * cutoff) never pays for the moves it didn't look at:
+ * <ol>
+ * <li>the node's "first move" (e.g. a hash move, or the best move from
+ *     an earlier search), if it is possible, before anything is
+ *     generated at all;
+ * <li>the jump moves, which are generated together, since if there are
+ *     any, they are the only moves allowed;
+ * <li>the walk moves, which are only generated once it is known that
+ *     there are no jumps, and they are actually asked for.
+ * </ol>
+ * Apart from the first move coming first, the moves come out in the same
+ * order as {@link GameState#generateMoves(MoveBuffer, int)}.
+ * <p>
+ * Like {@link MoveBuffer}, this keeps separate state for each ply of a
+ * search, so that the moves at deeper plies can be iterated over while
+ * those at shallower plies are still in progress.  Typical usage is:
+ * <pre>
+ *    moves.start(ply, firstMove);
+ *    for (long move; (move = moves.next(state, ply)) != PackedMove.NONE; ) {
+ *        ...
+ *    }
+ * </pre>
+ * It is not thread-safe; each search thread needs its own.
+ */
+public class StagedMoves {
+	private enum Stage { FIRST_MOVE, JUMPS, WALKS, DONE }
+
+	private final MoveBuffer buffer;
+	private final Stage[] stages;
+	private final long[] firstMoves;
+	private final int[] indices;
+
+	/**
+	 * Constructs a move source for plies 0 thru maxPly - 1.
+	 */
+	public StagedMoves(int maxPly) {
+		buffer = new MoveBuffer(maxPly);
+		stages = new Stage[maxPly];
+		firstMoves = new long[maxPly];
+		indices = new int[maxPly];
+	}
+
+	/**
+	 * Returns the number of plies this can generate moves for.
+	 */
+	public int maxPly() {
+		return stages.length;
+	}
+
+	/**
+	 * Starts generating the moves for the given ply, forgetting any that
+	 * were left over from before.
+	 *
+	 * @param firstMove move to try before all the others, if it is
+	 *                  possible, or {@link PackedMove#NONE}
+	 */
+	public void start(int ply, long firstMove) {
+		stages[ply] = Stage.FIRST_MOVE;
+		firstMoves[ply] = firstMove;
+		indices[ply] = -1;
+	}
+
+	/**
+	 * Returns the next possible move from the given state, which must be
+	 * the same as when the ply was started, or {@link PackedMove#NONE} if
+	 * there are no more.
+	 */
+	@SuppressWarnings("fallthrough")
+	public long next(GameState state, int ply) {
+		long firstMove = firstMoves[ply];
+
+		switch (stages[ply]) {
+		case FIRST_MOVE:
+			stages[ply] = Stage.JUMPS;
+			if (firstMove != PackedMove.NONE) {
+				if (PackedMove.isJump(firstMove)) {
+					// can't tell whether a jump is possible without
+					// generating the jumps, so generate them early
+					generateJumps(state, ply);
+					if (buffer.contains(ply, firstMove))
+						return firstMove;
+				} else if (state.isPossibleWalk(firstMove)) {
+					return firstMove;
+				}
+			}
+			// fall thru
+		case JUMPS:
+			if (indices[ply] < 0)
+				generateJumps(state, ply);
+			while (indices[ply] < buffer.size(ply)) {
+				long move = buffer.get(ply, indices[ply]++);
+				if (move != firstMove)
+					return move;
+			}
+			if (buffer.size(ply) > 0) {
+				// jumps are compulsory, so there are no walks to try
+				stages[ply] = Stage.DONE;
+				return PackedMove.NONE;
+			}
+
+			stages[ply] = Stage.WALKS;
+			state.generateWalks(buffer, ply);
+			indices[ply] = 0;
+			// fall thru
+		case WALKS:
+			while (indices[ply] < buffer.size(ply)) {
+				long move = buffer.get(ply, indices[ply]++);
+				if (move != firstMove)
+					return move;
+			}
+			stages[ply] = Stage.DONE;
+			// fall thru
+		case DONE:
+			return PackedMove.NONE;
+
+		default:
+			assert false;
+		}
+
+		return PackedMove.NONE;
+	}
+
+	private void generateJumps(GameState state, int ply) {
+		state.generateJumps(buffer, ply);
+		indices[ply] = 0;
+	}
+}
@@ -0,0 +1,130 @@
+package checkers.model;
+
+import java.util.Arrays;
+
+/**
+ * Stack of undo records for {@link GameState#makeMove(long, UndoStack)}
+ * and {@link GameState#makeMoveUnchecked(Move, UndoStack)}, which push a
+ * record of the complete state before each move, and
+ * {@link GameState#undoMove(UndoStack)}, which pops one and restores it.
+ * <p>
+ * A record holds the bitboards and Zobrist key of the Board (from which
+ * the material counts follow), the player to move, the jumping piece and
+ * the last move, plus the move that was made in {@link PackedMove} form,
+ * which has its captured pieces and promotion flag.  Undoing a move is
+ * then just copying them back, which never needs to look at the move or
+ * at the board geometry, and also restores a state that was in the middle
+ * of a jump sequence.
+ * <p>
+ * The records are kept in preallocated primitive arrays, so a search can
+ * use one stack for all its plies without allocating.  An UndoStack is not
+ * thread-safe; each search thread needs its own.
+ */
+public class UndoStack {
+	private int[] blackPieces;
+	private int[] whitePieces;
+	private int[] kings;
+	private long[] keys;
+	private PlayerId[] playersToMove;
+	private int[] jumpers;
+	private long[] lastPackedMoves;
+	private Move[] lastMoves;
+	private long[] moves;
+
+	private int size;
+
+	/**
+	 * Constructs an empty stack with room for the given number of records
+	 * (e.g. the maximum depth of a search); it grows if needed.
+	 */
+	public UndoStack(int capacity) {
+		capacity = Math.max(capacity, 1);
+		blackPieces = new int[capacity];
+		whitePieces = new int[capacity];
+		kings = new int[capacity];
+		keys = new long[capacity];
+		playersToMove = new PlayerId[capacity];
+		jumpers = new int[capacity];
+		lastPackedMoves = new long[capacity];
+		lastMoves = new Move[capacity];
+		moves = new long[capacity];
+	}
+
+	/**
+	 * Returns the number of moves that can be undone.
+	 */
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the (packed) move at the top of the stack, i.e. the move that
+	 * would be undone next.
+	 */
+	public long peekMove() {
+		if (size == 0)
+			throw new IllegalStateException("no move to undo");
+		return moves[size - 1];
+	}
+
+	/**
+	 * Pushes a record of the given state, before the given move is made.
+	 */
+	void push(PlayerId playerToMove, int jumper, long lastPackedMove, Move lastMove,
+			Board board, long move) {
+		if (size == blackPieces.length)
+			grow();
+
+		blackPieces[size] = board.blackPieces();
+		whitePieces[size] = board.whitePieces();
+		kings[size] = board.kings();
+		keys[size] = board.key();
+		playersToMove[size] = playerToMove;
+		jumpers[size] = jumper;
+		lastPackedMoves[size] = lastPackedMove;
+		lastMoves[size] = lastMove;
+		moves[size] = move;
+		++size;
+	}
+
+	/**
+	 * Pops the top record, restoring its board into the given Board, and
+	 * returns its index, from which the rest of it can be read until the
+	 * next push.
+	 */
+	int pop(Board board) {
+		if (size == 0)
+			throw new IllegalStateException("no move to undo");
+
+		int top = --size;
+		board.restore(blackPieces[top], whitePieces[top], kings[top], keys[top]);
+		return top;
+	}
+
+	PlayerId playerToMove(int index) { return playersToMove[index]; }
+	int jumper(int index) { return jumpers[index]; }
+	long lastPackedMove(int index) { return lastPackedMoves[index]; }
+
+	Move lastMove(int index) {
+		Move lastMove = lastMoves[index];
+		lastMoves[index] = null; // don't hold on to it
+		return lastMove;
+	}
+
+	private void grow() {
+		int capacity = 2 * blackPieces.length;
+		blackPieces = Arrays.copyOf(blackPieces, capacity);
+		whitePieces = Arrays.copyOf(whitePieces, capacity);
+		kings = Arrays.copyOf(kings, capacity);
+		keys = Arrays.copyOf(keys, capacity);
+		playersToMove = Arrays.copyOf(playersToMove, capacity);
+		jumpers = Arrays.copyOf(jumpers, capacity);
+		lastPackedMoves = Arrays.copyOf(lastPackedMoves, capacity);
+		lastMoves = Arrays.copyOf(lastMoves, capacity);
+		moves = Arrays.copyOf(moves, capacity);
+	}
+}
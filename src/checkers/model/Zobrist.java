@@ -0,0 +1,86 @@
+package checkers.model;
+
+import checkers.model.Board.PositionState;
+
+/**
+ * Random keys for Zobrist hashing of positions: the key of a position is
+ * the XOR of the keys of each piece on each position, plus the side to
+ * move and the jumping piece's position (if any).  Making a move only
+ * needs to XOR in and out the keys of the pieces it changes.
+ * <p>
+ * The keys come from a fixed-seed generator, so a position's key is the
+ * same in every run of the program, and can be stored in files.
+ */
+public final class Zobrist {
+	/**
+	 * Identifies the key scheme; must be changed whenever the seed or the
+	 * way keys are combined changes, so that stored keys can be rejected.
+	 */
+	public static final int VERSION = 1;
+
+	private static final long SEED = 0x0511C4EC6E25L;
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * PIECE[state.ordinal()][pos] is the key of a given PositionState at a
+	 * given position; the EMPTY row is all zero.
+	 */
+	static final long[][] PIECE = new long[PositionState.values().length][33];
+
+	/**
+	 * Key XORed in when white is to move.
+	 */
+	static final long WHITE_TO_MOVE;
+
+	/**
+	 * JUMPER[pos] is the key XORed in when the piece at pos is in the
+	 * middle of a jump sequence; JUMPER[0] is zero.
+	 */
+	static final long[] JUMPER = new long[33];
+
+	static {
+		long state = SEED;
+		for (PositionState ps : PositionState.values()) {
+			if (ps == PositionState.EMPTY)
+				continue;
+			for (int pos = 1; pos <= 32; ++pos)
+				PIECE[ps.ordinal()][pos] = splitMix(state += GOLDEN_GAMMA);
+		}
+		WHITE_TO_MOVE = splitMix(state += GOLDEN_GAMMA);
+		for (int pos = 1; pos <= 32; ++pos)
+			JUMPER[pos] = splitMix(state += GOLDEN_GAMMA);
+	}
+
+	private Zobrist() { }
+
+	/**
+	 * Returns the key of the given PositionState on every position in the
+	 * given bitboard mask.
+	 */
+	static long squares(PositionState state, int mask) {
+		long[] keys = PIECE[state.ordinal()];
+		long key = 0;
+		for (; mask != 0; mask &= mask - 1)
+			key ^= keys[Integer.numberOfTrailingZeros(mask) + 1];
+		return key;
+	}
+
+	/**
+	 * Returns the key of a whole board, computed from scratch.
+	 */
+	static long of(int blackPieces, int whitePieces, int kings) {
+		return squares(PositionState.BLACK_MAN,  blackPieces & ~kings)
+				^ squares(PositionState.BLACK_KING, blackPieces & kings)
+				^ squares(PositionState.WHITE_MAN,  whitePieces & ~kings)
+				^ squares(PositionState.WHITE_KING, whitePieces & kings);
+	}
+
+	/**
+	 * The SplitMix64 mixing function.
+	 */
+	private static long splitMix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,63 @@
+package checkers.ai;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import checkers.Game;
+import checkers.GameClock;
+import checkers.io.FenIO;
+import checkers.model.GameState;
+import checkers.model.Move;
+import checkers.model.PlayerId;
+
+public class IterativeDeepeningPlayerTest {
+	private static final String MIDDLE_GAME = "B:W20,26,28,29,31,32:B4,8,10,11,12,15,22.";
+
+	@Test
+	public void testStopsInTime() {
+		IterativeDeepeningPlayer player = new IterativeDeepeningPlayer(200);
+		GameState state = FenIO.parseFen("W:WK5,K10,K26,K28:BK18,K19,K23,K24,K30.");
+
+		long start = System.nanoTime();
+		Move move = player.chooseMove(new GameState(state));
+		long millis = (System.nanoTime() - start) / 1000000;
+
+		assertTrue(state.isPossibleMove(move));
+		assertTrue(player.getDepthReached() > 0);
+		assertTrue("took " + millis + " ms", millis < 1000);
+	}
+
+	@Test
+	public void testStopsAtWin() {
+		// black's four kings can force a win well before the time is up
+		IterativeDeepeningPlayer player = new IterativeDeepeningPlayer(10000,
+				new TranspositionTable(16));
+		GameState state = FenIO.parseFen("B:WK5:BK21,K18,K31,K32.");
+
+		long start = System.nanoTime();
+		Move move = player.chooseMove(new GameState(state));
+		long millis = (System.nanoTime() - start) / 1000000;
+
+		assertTrue(state.isPossibleMove(move));
+		assertTrue(player.getDepthReached() < IterativeDeepeningPlayer.MAX_DEPTH);
+		assertTrue("took " + millis + " ms", millis < 5000);
+	}
+
+	@Test
+	public void testClock() {
+		GameClock clock = GameClock.parse("10+0.5");
+		assertEquals(10000, clock.getBaseMillis());
+		assertEquals(500, clock.getIncrementMillis());
+
+		IterativeDeepeningPlayer player = new IterativeDeepeningPlayer(0);
+		Game game = new Game(player, new RandomPlayer(1), FenIO.parseFen(MIDDLE_GAME));
+		game.setClock(clock);
+
+		game.makeMove(game.getPlayerToMove().chooseMove(new GameState(game.getState())));
+		long left = clock.getRemainingMillis(PlayerId.BLACK);
+		assertTrue(left > 0 && left <= 10500);
+		assertEquals(10000, clock.getRemainingMillis(PlayerId.WHITE));
+		assertFalse(clock.isOutOfTime(PlayerId.BLACK));
+	}
+}
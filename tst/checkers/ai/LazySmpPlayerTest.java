@@ -0,0 +1,44 @@
+package checkers.ai;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import checkers.io.FenIO;
+import checkers.model.GameState;
+import checkers.model.Move;
+
+public class LazySmpPlayerTest {
+	@Test
+	public void testHelpersShareTheWork() {
+		GameState state = FenIO.parseFen("B:W20,26,28,29,31,32:B4,8,10,11,12,15,22.");
+		LazySmpPlayer player = new LazySmpPlayer(7, 3, new TranspositionTable(4));
+		try {
+			Move move = player.chooseMove(new GameState(state));
+			assertTrue(state.isPossibleMove(move));
+
+			int[] threadSearches = player.getThreadSearches();
+			assertEquals(3, threadSearches.length);
+			int total = 0;
+			for (int searches : threadSearches) {
+				assertTrue(searches >= 0);
+				total += searches;
+			}
+			assertTrue(threadSearches[0] > 0);
+			assertTrue(total <= player.getSearches());
+		} finally {
+			player.shutdown();
+		}
+	}
+
+	@Test
+	public void testOneThread() {
+		// with no helpers, it's an ordinary iterative deepening search
+		GameState state = FenIO.parseFen("W:WK5,K10,K26,K28:BK18,K19,K23,K24,K30.");
+		LazySmpPlayer player = new LazySmpPlayer(6, 1);
+		Move move = player.chooseMove(new GameState(state));
+		assertTrue(state.isPossibleMove(move));
+		assertEquals(1, player.getThreadSearches().length);
+		assertEquals(player.getThreadSearches()[0] + 1, player.getSearches());
+	}
+}
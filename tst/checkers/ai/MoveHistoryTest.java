@@ -0,0 +1,83 @@
+package checkers.ai;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import checkers.io.FenIO;
+import checkers.model.GameState;
+import checkers.model.Move;
+import checkers.model.PackedMove;
+
+public class MoveHistoryTest {
+	private static final long A = PackedMove.walk(9, 13, false, false);
+	private static final long B = PackedMove.walk(9, 14, false, false);
+	private static final long C = PackedMove.walk(10, 14, false, false);
+	private static final long D = PackedMove.walk(10, 15, false, false);
+
+	/**
+	 * Returns the order the history puts A, B, C and D in at the given ply.
+	 */
+	private static long[] order(MoveHistory history, int ply, long hashMove) {
+		MovePicker picker = new MovePicker(ply + 1);
+		for (long move : new long[] { A, B, C, D })
+			picker.add(ply, move, 0);
+		history.score(picker, ply, hashMove);
+
+		long[] order = new long[4];
+		for (int i = 0; i < order.length; ++i)
+			order[i] = picker.next(ply);
+		assertEquals(PackedMove.NONE, picker.next(ply));
+		return order;
+	}
+
+	@Test
+	public void testOrder() {
+		MoveHistory history = new MoveHistory();
+
+		// with no statistics, the order is kept
+		assertArrayEquals(new long[] { A, B, C, D }, order(history, 2, PackedMove.NONE));
+
+		// the hash move comes first
+		assertArrayEquals(new long[] { C, A, B, D }, order(history, 2, C));
+
+		// then the killers, latest first, then the rest by history
+		history.setMove(2, B);
+		history.cutoff(2, 3);
+		history.setMove(2, D);
+		history.cutoff(2, 1);
+		history.setMove(4, A);
+		history.cutoff(4, 5);
+		assertArrayEquals(new long[] { D, B, A, C }, order(history, 2, PackedMove.NONE));
+
+		// a new search forgets the killers
+		history.newSearch();
+		assertArrayEquals(new long[] { A, B, C, D }, order(history, 2, PackedMove.NONE));
+	}
+
+	@Test
+	public void testCounterMove() {
+		MoveHistory history = new MoveHistory();
+
+		long reply = PackedMove.walk(22, 18, false, false);
+		history.setMove(0, reply);
+		history.setMove(1, C);
+		history.cutoff(1, 2);
+		history.newSearch();
+
+		// C is the counter-move to the reply, whatever the ply
+		history.setMove(4, reply);
+		assertArrayEquals(new long[] { C, A, B, D }, order(history, 5, PackedMove.NONE));
+	}
+
+	@Test
+	public void testFewerNodes() {
+		GameState state = FenIO.parseFen("B:W20,26,28,29,31,32:B4,8,10,11,12,15,22.");
+		NegascoutOrderingPlayer searched = new NegascoutOrderingPlayer(7, 4);
+		NegascoutOrderingPlayer statistics = new NegascoutOrderingPlayer(7, new MoveHistory(), null);
+		searched.chooseMove(new GameState(state));
+		Move move = statistics.chooseMove(new GameState(state));
+		assertTrue(state.isPossibleMove(move));
+		assertTrue(statistics.getSearches() < searched.getSearches());
+	}
+}
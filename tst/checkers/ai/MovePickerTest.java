@@ -0,0 +1,74 @@
+package checkers.ai;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import checkers.io.FenIO;
+import checkers.model.GameState;
+import checkers.model.MoveBuffer;
+import checkers.model.PackedMove;
+
+public class MovePickerTest {
+	@Test
+	public void testPicking() {
+		MovePicker picker = new MovePicker(1);
+		long move0 = PackedMove.walk(1, 6, false, false);
+		long move1 = PackedMove.walk(7, 10, false, false);
+		long move2 = PackedMove.walk(18, 22, false, false);
+		long move3 = PackedMove.walk(19, 23, false, false);
+		picker.add(0, move0, 4);
+		picker.add(0, move1, 3);
+		picker.add(0, move2, 5);
+		picker.add(0, move3, 3); // another 3 to make sure the ordering is stable
+
+		assertEquals(move2, picker.next(0));
+		assertEquals(move0, picker.next(0));
+		assertEquals(move1, picker.next(0));
+		assertEquals(move3, picker.next(0));
+		assertEquals(PackedMove.NONE, picker.next(0));
+	}
+
+	@Test
+	public void testGenerate() {
+		GameState state = FenIO.parseFen("B:W21,22,23,24,25,26,27,28,29,30,31,32:B1,2,3,4,5,6,7,8,9,10,11,12.");
+		MoveBuffer expected = new MoveBuffer(1);
+		int count = state.generateMoves(expected, 0);
+
+		MovePicker picker = new MovePicker(2);
+		assertEquals(count, picker.generate(state, 1));
+		for (int i = 0; i < count; ++i)
+			assertEquals(expected.get(0, i), picker.get(1, i));
+
+		// the last move scored highest comes first, then the rest in order
+		picker.setScore(1, count - 1, 1);
+		assertEquals(expected.get(0, count - 1), picker.next(1));
+		for (int i = 0; i < count - 1; ++i)
+			assertEquals(expected.get(0, i), picker.next(1));
+		assertEquals(PackedMove.NONE, picker.next(1));
+
+		// generating again starts over
+		assertEquals(count, picker.generate(state, 1));
+		assertEquals(expected.get(0, 0), picker.next(1));
+	}
+
+	@Test
+	public void testGrows() {
+		// any long but NONE will do as a move here
+		MovePicker picker = new MovePicker(1);
+		for (int i = 1; i <= 100; ++i)
+			picker.add(0, i, i % 7);
+		assertEquals(100, picker.size(0));
+
+		long last = 0;
+		for (int i = 0; i < 100; ++i) {
+			long move = picker.next(0);
+			if (i > 0 && move % 7 == last % 7)
+				assertTrue(move > last);
+			else if (i > 0)
+				assertTrue(move % 7 < last % 7);
+			last = move;
+		}
+		assertEquals(PackedMove.NONE, picker.next(0));
+	}
+}
@@ -0,0 +1,96 @@
+package checkers.ai;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import checkers.io.FenIO;
+import checkers.model.GameState;
+import checkers.model.Move;
+import checkers.model.PackedMove;
+
+public class SearchEngineTest {
+	private static final String FEN = "B:W20,26,28,29,31,32:B4,8,10,11,12,15,22.";
+
+	@Test
+	public void testFeaturesCombine() {
+		GameState state = FenIO.parseFen(FEN);
+		for (int features = 0; features < 24; ++features) {
+			SearchEngine engine = new SearchEngine(6);
+			engine.setExtensions((features & 1) != 0);
+			engine.setPrincipalVariation((features & 2) != 0);
+			if ((features & 4) != 0)
+				engine.setTable(new TranspositionTable(1));
+			if (features / 8 == 1)
+				engine.setOrderingBySearch(3);
+			else if (features / 8 == 2)
+				engine.setOrderingByHistory(new MoveHistory());
+
+			SearchContext context = engine.context();
+			Move move = engine.chooseMove(new GameState(state), context);
+			assertTrue("features " + features, state.isPossibleMove(move));
+			assertTrue(context.getSearches() > 1);
+			assertTrue(context.getEvals() > 0);
+			assertEquals((features & 4) != 0, context.getHashProbes() > 0);
+		}
+	}
+
+	@Test
+	public void testStopCondition() {
+		GameState state = FenIO.parseFen(FEN);
+		SearchEngine engine = new SearchEngine(8);
+		SearchContext context = engine.context();
+		context.reset();
+		context.setStopCondition(new SearchContext.StopCondition() {
+			public boolean shouldStop(SearchContext context) {
+				return context.getSearches() > 100;
+			}
+		});
+
+		long move = PackedMove.fromMove(state.possibleMoves().get(0));
+		engine.searchMove(context, state, move, 8, -SearchEngine.INFINITY, SearchEngine.INFINITY);
+		assertTrue(context.isStopped());
+		assertEquals(101, context.getSearches());
+		assertEquals(FenIO.parseFen(FEN), state);
+
+		// a new search starts off unstopped
+		context.reset();
+		context.setStopCondition(null);
+		engine.searchMove(context, state, move, 3, -SearchEngine.INFINITY, SearchEngine.INFINITY);
+		assertFalse(context.isStopped());
+	}
+
+	@Test
+	public void testContextPerThread() throws InterruptedException {
+		final GameState state = FenIO.parseFen(FEN);
+		final SearchEngine engine = new SearchEngine(7);
+		engine.setOrderingBySearch(4);
+		engine.setPrincipalVariation(true);
+
+		SearchContext serial = engine.context();
+		final Move expected = engine.chooseMove(new GameState(state), serial);
+		final int expectedSearches = serial.getSearches();
+
+		// without a table, searches on other threads don't affect each other
+		final Move[] moves = new Move[2];
+		final int[] searches = new int[2];
+		Thread[] threads = new Thread[2];
+		for (int i = 0; i < threads.length; ++i) {
+			final int id = i;
+			threads[i] = new Thread() {
+				@Override
+				public void run() {
+					SearchContext context = engine.context();
+					moves[id] = engine.chooseMove(new GameState(state), context);
+					searches[id] = context.getSearches();
+				}
+			};
+			threads[i].start();
+		}
+		for (int i = 0; i < threads.length; ++i) {
+			threads[i].join();
+			assertEquals(expected, moves[i]);
+			assertEquals(expectedSearches, searches[i]);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package checkers.ai;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import checkers.io.FenIO;
+import checkers.model.GameState;
+import checkers.model.PackedMove;
+
+public class TranspositionTableTest {
+	@Test
+	public void testStoreAndProbe() {
+		TranspositionTable table = new TranspositionTable(1);
+		TranspositionTable.Entry entry = new TranspositionTable.Entry();
+		long key = 0x123456789ABCDEFL;
+		long move = PackedMove.walk(9, 13, false, false);
+		assertFalse(table.probe(key, entry));
+
+		table.store(key, 5, TranspositionTable.LOWER, -130, move);
+		assertTrue(table.probe(key, entry));
+		assertEquals(5, entry.depth);
+		assertEquals(TranspositionTable.LOWER, entry.bound);
+		assertEquals(-130, entry.score);
+		assertEquals(move, entry.move);
+
+		// same bucket, different verification bits
+		assertFalse(table.probe(key ^ (1L << 40), entry));
+
+		// infinite bounds are clamped
+		table.store(key, 5, TranspositionTable.LOWER, SearchEngine.INFINITY, move);
+		assertTrue(table.probe(key, entry));
+		assertEquals(Short.MAX_VALUE, entry.score);
+
+		table.clear();
+		assertFalse(table.probe(key, entry));
+	}
+
+	@Test
+	public void testReplacement() {
+		TranspositionTable table = new TranspositionTable(1);
+		TranspositionTable.Entry entry = new TranspositionTable.Entry();
+
+		// keys in the same bucket
+		long[] deep = { 1L << 32, 2L << 32, 3L << 32 };
+		long shallow1 = 4L << 32;
+		long shallow2 = 5L << 32;
+
+		// the deep results stay put while shallow ones take turns in the
+		// always-replace entry
+		for (long key : deep)
+			table.store(key, 8, TranspositionTable.EXACT, 1, PackedMove.NONE);
+		table.store(shallow1, 2, TranspositionTable.EXACT, 2, PackedMove.NONE);
+		table.store(shallow2, 2, TranspositionTable.EXACT, 3, PackedMove.NONE);
+		for (long key : deep)
+			assertTrue(table.probe(key, entry));
+		assertFalse(table.probe(shallow1, entry));
+		assertTrue(table.probe(shallow2, entry));
+
+		// until they get old
+		table.newSearch();
+		table.store(shallow1, 2, TranspositionTable.EXACT, 2, PackedMove.NONE);
+		assertTrue(table.probe(shallow1, entry));
+		assertTrue(table.probe(shallow2, entry));
+		assertFalse(table.probe(deep[0], entry));
+	}
+
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		TranspositionTable table = new TranspositionTable(1);
+		long move = PackedMove.walk(22, 18, false, false);
+		table.newSearch();
+		table.store(42, 7, TranspositionTable.EXACT, 55, move);
+
+		File file = File.createTempFile("table", ".tt");
+		try {
+			table.save(file.getPath());
+			TranspositionTable loaded = TranspositionTable.load(file.getPath());
+			assertEquals(table.size(), loaded.size());
+
+			TranspositionTable.Entry entry = new TranspositionTable.Entry();
+			assertTrue(loaded.probe(42, entry));
+			assertEquals(7, entry.depth);
+			assertEquals(TranspositionTable.EXACT, entry.bound);
+			assertEquals(55, entry.score);
+			assertEquals(move, entry.move);
+
+			// changes to a loaded table don't touch the file until it is
+			// saved again, even to the file it was loaded from
+			loaded.store(43, 1, TranspositionTable.LOWER, 0, PackedMove.NONE);
+			assertFalse(TranspositionTable.load(file.getPath()).probe(43, entry));
+			loaded.save(file.getPath());
+			assertTrue(TranspositionTable.load(file.getPath()).probe(43, entry));
+			assertTrue(loaded.probe(42, entry));
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testLoadRejectsOtherFiles() throws IOException {
+		File file = File.createTempFile("table", ".tt");
+		try {
+			FileOutputStream out = new FileOutputStream(file);
+			out.write(new byte[128]);
+			out.close();
+			TranspositionTable.load(file.getPath());
+		} finally {
+			file.delete();
+		}
+	}
+
+	@Test
+	public void testSameMovesWithTable() {
+		String[] fens = {
+			"B:W21,22,23,24,25,26,27,28,29,30,31,32:B1,2,3,4,5,6,7,8,9,10,11,12.",
+			"W:WK5,K10,K26,K28:BK18,K19,K23,K24,K30.",
+			"B:W20,26,28,29,31,32:B4,8,10,11,12,15,22.",
+		};
+		for (String fen : fens) {
+			AIPlayer plain = new NegamaxPlayer(6);
+			AIPlayer hashed = new NegamaxPlayer(6, new TranspositionTable(4));
+			GameState state = FenIO.parseFen(fen);
+			assertEquals(plain.chooseMove(new GameState(state)).toString(),
+					hashed.chooseMove(new GameState(state)).toString());
+			assertTrue(hashed.getHashHits() > 0);
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package checkers.ai;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import checkers.io.FenIO;
+import checkers.model.GameState;
+import checkers.model.Move;
+
+public class YoungBrothersWaitPlayerTest {
+	private static final String[] FENS = {
+		"B:W21,22,23,24,25,26,27,28,29,30,31,32:B1,2,3,4,5,6,7,8,9,10,11,12.",
+		"B:W20,26,28,29,31,32:B4,8,10,11,12,15,22.",
+		"W:WK5,K10,K26,K28:BK18,K19,K23,K24,K30.",
+	};
+
+	@Test
+	public void testSameMoveAsNegamax() {
+		// ties go to the first move generated, however the threads run
+		for (String fen : FENS) {
+			GameState state = FenIO.parseFen(fen);
+			Move expected = new NegamaxPlayer(6).chooseMove(new GameState(state));
+			for (int threads = 1; threads <= 3; ++threads) {
+				YoungBrothersWaitPlayer player = new YoungBrothersWaitPlayer(6, threads);
+				try {
+					for (int i = 0; i < 3; ++i)
+						assertEquals(fen + " with " + threads + " threads",
+								expected, player.chooseMove(new GameState(state)));
+				} finally {
+					player.shutdown();
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testStatistics() {
+		GameState state = FenIO.parseFen(FENS[1]);
+		NegamaxPlayer serial = new NegamaxPlayer(7);
+		serial.chooseMove(new GameState(state));
+
+		YoungBrothersWaitPlayer player = new YoungBrothersWaitPlayer(7, 2);
+		try {
+			player.chooseMove(new GameState(state));
+			assertTrue(player.getSearches() > 1);
+			assertTrue(player.getEvals() > 0);
+			assertTrue(player.getElapsedNanos() > 0);
+			assertTrue(player.getNodesPerSecondPerThread() > 0);
+			assertTrue(player.getSearchOverhead(serial.getSearches()) > -1);
+		} finally {
+			player.shutdown();
+		}
+	}
+}
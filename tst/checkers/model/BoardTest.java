@@ -0,0 +1,110 @@
+package checkers.model;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import checkers.io.FenIO;
+
+public class BoardTest {
+	@Test
+	public void testMoveQueriesAtStart() {
+		GameState state = new GameState();
+		assertTrue(state.hasAnyMove());
+		assertFalse(state.hasAnyJump());
+		assertEquals(7, state.countMoves());
+		assertEquals(state.possibleMoves().size(), state.countMoves());
+	}
+
+	@Test
+	public void testMoveQueriesWithJumps() {
+		// black king on 18 can take 22 or 23
+		GameState state = FenIO.parseFen("B:W22,23,32:BK18,1.");
+		assertTrue(state.hasAnyMove());
+		assertTrue(state.hasAnyJump());
+		assertEquals(state.possibleMoves().size(), state.countMoves());
+	}
+
+	@Test
+	public void testSameJumpsInDifferentOrder() {
+		// white king on 27 can go round 9, 2 and 11 either way from 18
+		GameState state = FenIO.parseFen("W:WK1,K3,K10,K12,K19,K27:BK6,K7,K14,K15,K22,K23.");
+		assertEquals(4, state.possibleMoves().size());
+		assertEquals(4, state.countMoves());
+
+		ArrayList<Integer> clockwise = new ArrayList<Integer>(
+				Arrays.asList(27, 18, 9, 2, 11, 18, 25));
+		ArrayList<Integer> anticlockwise = new ArrayList<Integer>(
+				Arrays.asList(27, 18, 11, 2, 9, 18, 25));
+		assertTrue(state.isPossibleMove(state.generateMove(clockwise)));
+		assertTrue(state.isPossibleMove(state.generateMove(anticlockwise)));
+	}
+
+	@Test
+	public void testCachedQueriesFollowState() {
+		GameState state = new GameState();
+		assertTrue(state.isPossibleSingleMove(9, 13));
+		assertTrue(state.isValidSingleMoveEndPos(16));
+
+		state.makeMove(state.possibleMoves().get(0));
+		assertFalse(state.isPossibleSingleMove(9, 13));
+		assertTrue(state.isPossibleSingleMove(22, 18));
+		assertEquals(state.countMoves(), state.possibleMoves().size());
+
+		// an identical position is answered from the cache
+		GameState copy = new GameState(state);
+		assertEquals(state.possibleMoves(), copy.possibleMoves());
+	}
+
+	@Test
+	public void testColorFlip() {
+		assertEquals(new Board(), new Board().flipped());
+
+		GameState state = FenIO.parseFen("W:W27,19,18,11,7,6,5:B28,26,25,20,17,10,9,4,3,2.");
+		GameState flipped = state.flipped();
+		assertEquals(state, flipped.flipped());
+		assertFalse(state.isCanonical());
+		assertTrue(state.canonical().flipped);
+		assertEquals(flipped, state.canonical().state);
+		assertEquals(flipped.key(), state.canonicalKey());
+		assertEquals(flipped.key(), flipped.canonicalKey());
+
+		MoveBuffer moves = new MoveBuffer(2);
+		int count = state.generateMoves(moves, 0);
+		assertEquals(count, flipped.generateMoves(moves, 1));
+		for (int i = 0; i < count; ++i) {
+			long move = moves.get(0, i);
+			assertTrue(moves.contains(1, state.toCanonicalMove(move)));
+			assertEquals(move, PackedMove.flip(PackedMove.flip(move)));
+		}
+
+		Perft perft = new Perft();
+		assertEquals(perft.count(state, 5), perft.count(flipped, 5));
+	}
+
+	@Test
+	public void testMaterialCounts() {
+		Board board = FenIO.parseFen("B:W22,23,K32:BK18,1,2.").getBoard();
+		assertEquals(2, board.blackMen());
+		assertEquals(1, board.blackKings());
+		assertEquals(2, board.whiteMen());
+		assertEquals(1, board.whiteKings());
+		assertEquals(3, board.piecesCountOf(PlayerId.WHITE));
+
+		board.makeMoveUnchecked(new Jump(18, 27, true, false));
+		assertEquals(1, board.whiteMen());
+		assertEquals(1, board.whiteKings());
+	}
+
+	@Test
+	public void testMoveQueriesAtEnd() {
+		// white's only man is blocked in
+		GameState state = FenIO.parseFen("W:W29:B22,25.");
+		assertFalse(state.hasAnyMove());
+		assertTrue(state.gameIsOver());
+		assertEquals(0, state.countMoves());
+	}
+}
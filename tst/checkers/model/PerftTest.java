@@ -0,0 +1,61 @@
+package checkers.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import checkers.io.FenIO;
+
+public class PerftTest {
+	/**
+	 * Published perft counts from the start of a game.
+	 */
+	private static final long[] START_COUNTS =
+			{ 1, 7, 49, 302, 1469, 7361, 36768, 179740, 845931 };
+
+	@Test
+	public void testStartCounts() {
+		Perft perft = new Perft();
+		GameState state = new GameState();
+		for (int depth = 0; depth < START_COUNTS.length; ++depth)
+			assertEquals(START_COUNTS[depth], perft.count(state, depth));
+		assertEquals(new GameState().key(), state.key());
+	}
+
+	@Test
+	public void testHashedCounts() {
+		Perft perft = new Perft(1);
+		GameState state = new GameState();
+		for (int depth = 0; depth < START_COUNTS.length; ++depth)
+			assertEquals(START_COUNTS[depth], perft.count(state, depth));
+		assertTrue(perft.getHashHits() > 0);
+	}
+
+	@Test
+	public void testParallelCounts() {
+		ParallelPerft parallelPerft = new ParallelPerft(3, 0);
+		Perft perft = new Perft();
+		GameState state = FenIO.parseFen("W:WK1,K3,K10,K12,K19,K27:BK6,K7,K14,K15,K22,K23.");
+		try {
+			for (int depth = 0; depth <= 6; ++depth)
+				assertEquals(perft.count(state, depth), parallelPerft.count(state, depth));
+			assertArrayEquals(perft.divide(state, 5), parallelPerft.divide(state, 5));
+			assertEquals(START_COUNTS[8], parallelPerft.count(new GameState(), 8));
+		} finally {
+			parallelPerft.shutdown();
+		}
+	}
+
+	@Test
+	public void testDivide() {
+		Perft perft = new Perft();
+		GameState state = FenIO.parseFen("W:WK1,K3,K10,K12,K19,K27:BK6,K7,K14,K15,K22,K23.");
+		long[] counts = perft.divide(state, 5);
+		assertEquals(state.countMoves(), counts.length);
+
+		long total = 0;
+		for (long count : counts)
+			total += count;
+		assertEquals(perft.count(state, 5), total);
+	}
+}
@@ -0,0 +1,134 @@
+package checkers.model;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import checkers.io.BinaryPositionIO;
+import checkers.io.FenIO;
+
+public class PositionGeneratorTest {
+	@Test
+	public void testSameSeedSameStates() {
+		List<GameState> first = new PositionGenerator(42).stream(50).collect(Collectors.toList());
+		List<GameState> second = new PositionGenerator(42).stream(50).collect(Collectors.toList());
+		for (int i = 0; i < first.size(); ++i) {
+			assertEquals(first.get(i).getBoard(), second.get(i).getBoard());
+			assertEquals(first.get(i).playerToMove(), second.get(i).playerToMove());
+			assertEquals(first.get(i).getBoard(), new PositionGenerator(42).generate(i).getBoard());
+		}
+	}
+
+	@Test
+	public void testStatesSpreadOut() {
+		// states are chosen from all through the games, not mostly from
+		// their starts
+		List<GameState> states = new PositionGenerator(5).stream(1000).collect(Collectors.toList());
+		Set<String> distinct = new HashSet<String>();
+		int starts = 0;
+		int endgames = 0;
+		Board start = new GameState().getBoard();
+		for (GameState state : states) {
+			Board board = state.getBoard();
+			distinct.add(FenIO.outputFen(state));
+			if (board.equals(start))
+				++starts;
+			if (board.piecesCountOf(PlayerId.BLACK) + board.piecesCountOf(PlayerId.WHITE) <= 12)
+				++endgames;
+		}
+		assertTrue("only " + distinct.size() + " distinct states", distinct.size() > 900);
+		assertTrue(starts + " start positions", starts < 50);
+		assertTrue("only " + endgames + " endgames", endgames > 200);
+	}
+
+	@Test
+	public void testConstraintsMet() {
+		PositionGenerator generator = new PositionGenerator(7);
+		generator.setBlackPieces(3, 6);
+		generator.setWhitePieces(5, 5);
+		generator.setPlayerToMove(PlayerId.WHITE);
+		generator.setCapturePending(Boolean.TRUE);
+
+		for (int i = 0; i < 20; ++i) {
+			GameState state = generator.generate(i);
+			int black = state.getBoard().piecesCountOf(PlayerId.BLACK);
+			assertTrue(black >= 3 && black <= 6);
+			assertEquals(5, state.getBoard().piecesCountOf(PlayerId.WHITE));
+			assertEquals(PlayerId.WHITE, state.playerToMove());
+			assertTrue(state.hasAnyJump());
+		}
+	}
+
+	@Test
+	public void testMenAndKingsConstraintsMet() {
+		PositionGenerator generator = new PositionGenerator(11);
+		generator.setBlackKings(1, 2);
+		generator.setWhiteKings(0, 0);
+		generator.setBlackMen(2, 4);
+		generator.setWhiteMen(3, 12);
+
+		for (int i = 0; i < 20; ++i) {
+			Board board = generator.generate(i).getBoard();
+			assertTrue(board.blackKings() >= 1 && board.blackKings() <= 2);
+			assertEquals(0, board.whiteKings());
+			assertTrue(board.blackMen() >= 2 && board.blackMen() <= 4);
+			assertTrue(board.whiteMen() >= 3);
+		}
+	}
+
+	@Test
+	public void testMatches() {
+		// two black men and a black king, against a white king
+		GameState state = FenIO.parseFen("B:WK1:B20,21,K32.");
+		PositionGenerator generator = new PositionGenerator(0);
+		assertTrue(generator.matches(state));
+
+		generator.setBlackKings(2, 12);
+		assertFalse(generator.matches(state));
+		generator.setBlackKings(1, 1);
+		assertTrue(generator.matches(state));
+
+		generator.setWhiteMen(1, 12);
+		assertFalse(generator.matches(state));
+		generator.setWhiteMen(0, 0);
+		generator.setBlackMen(0, 1);
+		assertFalse(generator.matches(state));
+		generator.setBlackMen(2, 2);
+		generator.setWhiteKings(1, 1);
+		assertTrue(generator.matches(state));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBadRange() {
+		new PositionGenerator(0).setWhiteKings(-1, 3);
+	}
+
+	@Test
+	public void testBinaryRoundTrip() throws IOException {
+		List<GameState> states = new PositionGenerator(3).stream(20).collect(Collectors.toList());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for (GameState state : states)
+			BinaryPositionIO.writePosition(out, state);
+		assertEquals(states.size() * BinaryPositionIO.RECORD_BYTES, bytes.size());
+
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		for (GameState state : states) {
+			GameState read = BinaryPositionIO.readPosition(in);
+			assertEquals(state.getBoard(), read.getBoard());
+			assertEquals(state.playerToMove(), read.playerToMove());
+			assertEquals(state.key(), read.key());
+		}
+	}
+}
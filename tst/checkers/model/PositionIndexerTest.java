@@ -0,0 +1,65 @@
+package checkers.model;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+import checkers.io.FenIO;
+
+public class PositionIndexerTest {
+	@Test
+	public void testSizeMatchesBruteForce() {
+		// one black man, one black king, one white man
+		long count = 0;
+		for (int bm = 1; bm <= 28; ++bm)
+			for (int bk = 1; bk <= 32; ++bk)
+				for (int wm = 5; wm <= 32; ++wm)
+					if (bm != bk && bm != wm && bk != wm)
+						++count;
+		assertEquals(count, new PositionIndexer(1, 1, 1, 0).size());
+	}
+
+	@Test
+	public void testRoundTrip() {
+		checkRoundTrip(new PositionIndexer(1, 1, 1, 0));
+		checkRoundTrip(new PositionIndexer(2, 0, 1, 1));
+		checkRoundTrip(new PositionIndexer(0, 2, 0, 2));
+		checkRoundTrip(new PositionIndexer(5, 0, 0, 1));
+	}
+
+	@Test
+	public void testRankOfGamePosition() {
+		Board board = FenIO.parseFen("W:W27,19,18,11,7,6,5:B28,26,25,20,17,10,9,4,3,2.").getBoard();
+		PositionIndexer indexer = PositionIndexer.forBoard(board);
+		assertEquals(board, indexer.unrank(indexer.rank(board)));
+
+		Board start = new Board();
+		indexer = PositionIndexer.forBoard(start);
+		assertEquals(start, indexer.unrank(indexer.rank(start)));
+	}
+
+	@Test
+	public void testSignatures() {
+		assertEquals(4, PositionIndexer.signatures(2).size());
+		for (int[] signature : PositionIndexer.signatures(4))
+			assertEquals(4, signature[0] + signature[1] + signature[2] + signature[3]);
+	}
+
+	private static void checkRoundTrip(PositionIndexer indexer) {
+		HashSet<Board> seen = new HashSet<Board>();
+		long index = 0;
+		for (Iterator<Board> boards = indexer.iterator(); boards.hasNext(); ++index) {
+			Board board = boards.next();
+			assertEquals(indexer.blackMen(), board.blackMen());
+			assertEquals(indexer.blackKings(), board.blackKings());
+			assertEquals(indexer.whiteMen(), board.whiteMen());
+			assertEquals(indexer.whiteKings(), board.whiteKings());
+			assertEquals(index, indexer.rank(board));
+			assertTrue(seen.add(board));
+		}
+		assertEquals(indexer.size(), index);
+	}
+}
@@ -0,0 +1,54 @@
+package checkers.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import checkers.io.FenIO;
+
+public class StagedMovesTest {
+	@Test
+	public void testSameMovesAsGenerator() {
+		checkStages(new GameState());
+		checkStages(FenIO.parseFen("B:W22,23,32:BK18,1."));
+		checkStages(FenIO.parseFen("W:WK1,K3,K10,K12,K19,K27:BK6,K7,K14,K15,K22,K23."));
+	}
+
+	@Test
+	public void testImpossibleFirstMoveIsSkipped() {
+		GameState state = FenIO.parseFen("B:W22,23,32:BK18,1.");
+		MoveBuffer buffer = new MoveBuffer(1);
+		int count = state.generateMoves(buffer, 0);
+
+		// a walk, but only jumps are allowed
+		StagedMoves moves = new StagedMoves(1);
+		moves.start(0, PackedMove.walk(1, 6, false, false));
+		for (int i = 0; i < count; ++i)
+			assertEquals(buffer.get(0, i), moves.next(state, 0));
+		assertEquals(PackedMove.NONE, moves.next(state, 0));
+	}
+
+	/**
+	 * Checks that the staged moves are the generated moves in the same
+	 * order, with each of them in turn moved to the front.
+	 */
+	private static void checkStages(GameState state) {
+		MoveBuffer buffer = new MoveBuffer(1);
+		int count = state.generateMoves(buffer, 0);
+		StagedMoves moves = new StagedMoves(2);
+
+		moves.start(1, PackedMove.NONE);
+		for (int i = 0; i < count; ++i)
+			assertEquals(buffer.get(0, i), moves.next(state, 1));
+		assertEquals(PackedMove.NONE, moves.next(state, 1));
+
+		for (int first = 0; first < count; ++first) {
+			moves.start(1, buffer.get(0, first));
+			assertEquals(buffer.get(0, first), moves.next(state, 1));
+			for (int i = 0; i < count; ++i)
+				if (i != first)
+					assertEquals(buffer.get(0, i), moves.next(state, 1));
+			assertEquals(PackedMove.NONE, moves.next(state, 1));
+		}
+	}
+}
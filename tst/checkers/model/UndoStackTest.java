@@ -0,0 +1,85 @@
+package checkers.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import checkers.io.FenIO;
+
+public class UndoStackTest {
+	@Test
+	public void testUndoRestoresState() {
+		GameState state = FenIO.parseFen("B:W22,23,32:BK18,1.");
+		GameState before = new GameState(state);
+		UndoStack undo = new UndoStack(1);
+
+		MoveBuffer buffer = new MoveBuffer(2);
+		int count = state.generateMoves(buffer, 0);
+		for (int i = 0; i < count; ++i) {
+			long move = buffer.get(0, i);
+			state.makeMove(move, undo);
+			int replies = state.generateMoves(buffer, 1);
+			for (int j = 0; j < replies; ++j) {
+				state.makeMove(buffer.get(1, j), undo);
+				assertEquals(2, undo.size());
+				state.undoMove(undo);
+			}
+			assertEquals(move, state.undoMove(undo));
+			assertTrue(undo.isEmpty());
+			assertEquals(before.getBoard(), state.getBoard());
+			assertEquals(before.key(), state.key());
+			assertEquals(before.playerToMove(), state.playerToMove());
+		}
+	}
+
+	@Test
+	public void testLastMove() {
+		GameState state = FenIO.parseFen("B:W22,23,32:BK18,1.");
+		UndoStack undo = new UndoStack(2);
+
+		Move first = state.possibleMoves().get(0);
+		state.makeMoveUnchecked(first, undo);
+		assertSame(first, state.getLastMove());
+
+		// a packed move is the last move too, and undoing it brings back
+		// the one before
+		MoveBuffer buffer = new MoveBuffer(1);
+		state.generateMoves(buffer, 0);
+		long reply = buffer.get(0, 0);
+		state.makeMove(reply, undo);
+		assertEquals(PackedMove.toMove(reply), state.getLastMove());
+		assertEquals(PackedMove.endPos(reply), state.getLastMoveEndPos());
+
+		state.undoMove(undo);
+		assertSame(first, state.getLastMove());
+		assertEquals(first.endPos(), state.getLastMoveEndPos());
+
+		state.undoMove(undo);
+		assertNull(state.getLastMove());
+		assertEquals(0, state.getLastMoveEndPos());
+	}
+
+	@Test
+	public void testUndoMidJump() {
+		// black man on 1 jumps 6 and 15, one jump at a time
+		GameState state = FenIO.parseFen("B:W6,15:B1.");
+		assertFalse(state.makeSingleMove(1, 10));
+		assertTrue(state.isJumping());
+		long key = state.key();
+
+		UndoStack undo = new UndoStack(1);
+		Move rest = state.possibleMoves().get(0);
+		Move lastMove = state.getLastMove();
+		state.makeMoveUnchecked(rest, undo);
+		assertSame(rest, state.getLastMove());
+		assertFalse(state.isJumping());
+		assertEquals(PlayerId.WHITE, state.playerToMove());
+
+		state.undoMove(undo);
+		assertTrue(state.isJumping());
+		assertEquals(10, state.getJumpingPos());
+		assertEquals(PlayerId.BLACK, state.playerToMove());
+		assertSame(lastMove, state.getLastMove());
+		assertEquals(key, state.key());
+	}
+}